@@ -0,0 +1,63 @@
+package warehouse_planning.algorithm;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import warehouse_planning.model.Slot;
+
+/**
+ * Random slots of one warehouse over a month, in random order.
+ *
+ * @author agavrikov
+ */
+public final class SlotGenerator {
+
+    private static final int DAYS = 30;
+    private static final LocalDate START = LocalDate.of(2019, 1, 1);
+
+    public enum Distribution {
+        /** starts spread over the day */
+        UNIFORM,
+        /** a third of the slots start in the evening and end after midnight */
+        OVERNIGHT,
+        /** most slots start in the morning and evening peaks */
+        PEAKS
+    }
+
+    private SlotGenerator() {
+    }
+
+    public static List<Slot> generate(int count, Distribution distribution, long seed) {
+        Random random = new Random(seed);
+        LocalDateTime creationTime = LocalDateTime.of(START, LocalTime.MIDNIGHT);
+        List<Slot> slots = new ArrayList<>(count);
+        for (int i = 0; i < count; ++i) {
+            int minuteFrom;
+            int duration = 15 + random.nextInt(120);
+            switch (distribution) {
+                case OVERNIGHT:
+                    minuteFrom = random.nextInt(3) == 0
+                            ? 20 * 60 + random.nextInt(4 * 60)
+                            : random.nextInt(22 * 60);
+                    break;
+                case PEAKS:
+                    int peak = random.nextInt(10);
+                    minuteFrom = peak < 4 ? 7 * 60 + random.nextInt(2 * 60)
+                            : peak < 8 ? 17 * 60 + random.nextInt(2 * 60)
+                            : random.nextInt(22 * 60);
+                    break;
+                default:
+                    minuteFrom = random.nextInt(22 * 60);
+            }
+            LocalTime timeFrom = LocalTime.ofSecondOfDay(minuteFrom * 60L);
+            LocalTime timeTo = timeFrom.plusMinutes(duration);
+            slots.add(new Slot(i + 1, "SLOT-" + i, 1, START.plusDays(random.nextInt(DAYS)), timeFrom, timeTo, null,
+                    creationTime));
+        }
+        return slots;
+    }
+}
@@ -0,0 +1,54 @@
+package warehouse_planning.algorithm;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.*;
+
+import warehouse_planning.model.Slot;
+
+/**
+ * Start order of the slots: {@link Slot#compareTo} over a copy of the list against the packed-key sorts of
+ * {@link SlotBuffer}.
+ *
+ * @author agavrikov
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class SlotSortBenchmark {
+
+    @Param({"10000", "100000", "1000000"})
+    private int slotCount;
+
+    private List<Slot> slots;
+    private SlotBuffer buffer;
+
+    @Setup
+    public void setUp() {
+        slots = SlotGenerator.generate(slotCount, SlotGenerator.Distribution.OVERNIGHT, 42);
+        buffer = SlotBuffer.of(slots);
+    }
+
+    @Benchmark
+    public List<Slot> compareTo() {
+        List<Slot> sorted = new ArrayList<>(slots);
+        Collections.sort(sorted);
+        return sorted;
+    }
+
+    @Benchmark
+    public int[] buffer() {
+        return buffer.sort();
+    }
+
+    @Benchmark
+    public int[] bufferParallel() {
+        return buffer.parallelSort();
+    }
+}
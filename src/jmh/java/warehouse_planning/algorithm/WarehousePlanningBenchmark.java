@@ -0,0 +1,54 @@
+package warehouse_planning.algorithm;
+
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.*;
+
+import warehouse_planning.model.Slot;
+
+/**
+ * Full planning of one warehouse: from the slot list as the service used to, from a prepared buffer, and from a
+ * prepared buffer split into timeline segments on the common pool.
+ *
+ * @author agavrikov
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class WarehousePlanningBenchmark {
+
+    @Param({"10000", "100000", "1000000"})
+    private int slotCount;
+
+    @Param({"UNIFORM", "OVERNIGHT", "PEAKS"})
+    private SlotGenerator.Distribution distribution;
+
+    private List<Slot> slots;
+    private SlotBuffer buffer;
+
+    @Setup
+    public void setUp() {
+        slots = SlotGenerator.generate(slotCount, distribution, 42);
+        buffer = SlotBuffer.of(slots);
+    }
+
+    @Benchmark
+    public int list() {
+        return WarehousePlanning.planning(slots);
+    }
+
+    @Benchmark
+    public int buffer() {
+        return WarehousePlanning.planning(buffer);
+    }
+
+    @Benchmark
+    public int parallel() {
+        return ParallelPlanning.planning(buffer, ForkJoinPool.commonPool());
+    }
+}
@@ -0,0 +1,151 @@
+package warehouse_planning.mapper;
+
+import java.lang.reflect.Proxy;
+import java.sql.Date;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Time;
+import java.sql.Timestamp;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import warehouse_planning.algorithm.SlotBuffer;
+import warehouse_planning.algorithm.SlotGenerator;
+import warehouse_planning.model.Slot;
+
+/**
+ * Slot mappers over an in-memory result set of the slot columns, per row: {@link SlotMapper} by column name,
+ * {@link IndexedSlotMapper} by position and {@link SlotBufferMapper} into a {@link SlotBuffer}. Every fourth slot
+ * is free. The result set is a dynamic proxy, its dispatch cost is part of every result and the same for every
+ * mapper.
+ *
+ * @author agavrikov
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+@OperationsPerInvocation(SlotMapperBenchmark.ROW_COUNT)
+public class SlotMapperBenchmark {
+
+    static final int ROW_COUNT = 100_000;
+
+    private static final String[] COLUMNS =
+            {"id", "guid", "warehouse_id", "date", "time_from", "time_to", "conveyor_id", "creation_time",
+                    "starts_at", "ends_at"};
+
+    private Object[][] rows;
+
+    @Setup
+    public void setUp() {
+        List<Slot> slots = SlotGenerator.generate(ROW_COUNT, SlotGenerator.Distribution.UNIFORM, 42);
+        Timestamp creationTime = Timestamp.valueOf("2019-01-01 00:00:00");
+        rows = new Object[ROW_COUNT][];
+        for (int i = 0; i < ROW_COUNT; ++i) {
+            Slot slot = slots.get(i);
+            rows[i] = new Object[]{slot.getId(), slot.getGuid(), slot.getWarehouseId(),
+                    Date.valueOf(slot.getDate()), Time.valueOf(slot.getTimeFrom()), Time.valueOf(slot.getTimeTo()),
+                    i % 4 == 0 ? null : i % 100 + 1, creationTime,
+                    Timestamp.valueOf(slot.getDate().atTime(slot.getTimeFrom())),
+                    Timestamp.valueOf(slot.getDate().atTime(slot.getTimeTo()))};
+        }
+    }
+
+    @Benchmark
+    public void slotMapper(Blackhole blackhole) throws SQLException {
+        ResultSet rs = resultSet(rows);
+        SlotMapper mapper = new SlotMapper();
+        for (int row = 0; rs.next(); ++row) {
+            blackhole.consume(mapper.mapRow(rs, row));
+        }
+    }
+
+    @Benchmark
+    public void indexedSlotMapper(Blackhole blackhole) throws SQLException {
+        ResultSet rs = resultSet(rows);
+        IndexedSlotMapper mapper = new IndexedSlotMapper();
+        for (int row = 0; rs.next(); ++row) {
+            blackhole.consume(mapper.mapRow(rs, row));
+        }
+    }
+
+    @Benchmark
+    public SlotBuffer slotBufferMapper() throws SQLException {
+        ResultSet rs = resultSet(rows);
+        SlotBuffer buffer = new SlotBuffer(ROW_COUNT);
+        SlotBufferMapper mapper = new SlotBufferMapper(buffer);
+        while (rs.next()) {
+            mapper.processRow(rs);
+        }
+        return buffer;
+    }
+
+    /**
+     * Read-only forward result set over {@code rows}, accessed by column name or 1-based index.
+     */
+    static ResultSet resultSet(Object[][] rows) {
+        int[] position = {-1};
+        boolean[] wasNull = {false};
+        return (ResultSet) Proxy.newProxyInstance(ResultSet.class.getClassLoader(), new Class<?>[]{ResultSet.class},
+                (proxy, method, args) -> {
+                    switch (method.getName()) {
+                        case "next":
+                            return ++position[0] < rows.length;
+                        case "wasNull":
+                            return wasNull[0];
+                        case "findColumn":
+                            return column((String) args[0]) + 1;
+                        case "close":
+                            return null;
+                    }
+                    int column = args[0] instanceof String ? column((String) args[0]) : (Integer) args[0] - 1;
+                    Object value = rows[position[0]][column];
+                    wasNull[0] = value == null;
+                    switch (method.getName()) {
+                        case "getLong":
+                            return value == null ? 0L : ((Number) value).longValue();
+                        case "getInt":
+                            return value == null ? 0 : ((Number) value).intValue();
+                        case "getObject":
+                            if (args.length == 2 && value != null) {
+                                return convert(value, (Class<?>) args[1]);
+                            }
+                            return value;
+                        case "getString":
+                        case "getDate":
+                        case "getTime":
+                        case "getTimestamp":
+                            return value;
+                        default:
+                            throw new UnsupportedOperationException(method.getName());
+                    }
+                });
+    }
+
+    private static Object convert(Object value, Class<?> type) {
+        if (value instanceof Date && type == java.time.LocalDate.class) {
+            return ((Date) value).toLocalDate();
+        }
+        if (value instanceof Time && type == java.time.LocalTime.class) {
+            return ((Time) value).toLocalTime();
+        }
+        if (value instanceof Timestamp && type == java.time.LocalDateTime.class) {
+            return ((Timestamp) value).toLocalDateTime();
+        }
+        return type.cast(value);
+    }
+
+    private static int column(String name) {
+        for (int i = 0; i < COLUMNS.length; ++i) {
+            if (COLUMNS[i].equals(name)) {
+                return i;
+            }
+        }
+        throw new IllegalArgumentException(name);
+    }
+}
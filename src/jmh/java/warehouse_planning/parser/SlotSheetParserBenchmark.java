@@ -0,0 +1,131 @@
+package warehouse_planning.parser;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.poi.openxml4j.exceptions.OpenXML4JException;
+import org.apache.poi.openxml4j.opc.OPCPackage;
+import org.apache.poi.ss.usermodel.CellStyle;
+import org.apache.poi.ss.usermodel.Row;
+import org.apache.poi.ss.usermodel.Sheet;
+import org.apache.poi.xssf.streaming.SXSSFWorkbook;
+import org.apache.poi.xssf.usermodel.XSSFRow;
+import org.apache.poi.xssf.usermodel.XSSFSheet;
+import org.apache.poi.xssf.usermodel.XSSFWorkbook;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+import org.xml.sax.SAXException;
+
+import warehouse_planning.model.Slot;
+
+/**
+ * Compares the streaming SAX import with the former {@code XSSFWorkbook} import. The {@code rows} counter reports
+ * rows/sec, run with {@code -prof gc} (enabled in build.gradle) to compare allocated bytes per import.
+ *
+ * @author agavrikov
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+@Fork(1)
+public class SlotSheetParserBenchmark {
+
+    @Param({"10000", "100000"})
+    private int rowCount;
+
+    private byte[] xlsx;
+
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.OPERATIONS)
+    public static class Rows {
+        public long rows;
+
+        @Setup(Level.Iteration)
+        public void reset() {
+            rows = 0;
+        }
+    }
+
+    @Setup
+    public void setUp() throws IOException {
+        Random random = new Random(42);
+        SXSSFWorkbook workbook = new SXSSFWorkbook(100);
+        try {
+            CellStyle dateStyle = workbook.createCellStyle();
+            dateStyle.setDataFormat(workbook.createDataFormat().getFormat("yyyy-mm-dd"));
+            CellStyle timeStyle = workbook.createCellStyle();
+            timeStyle.setDataFormat(workbook.createDataFormat().getFormat("hh:mm"));
+
+            Sheet sheet = workbook.createSheet();
+            LocalDate start = LocalDate.of(2019, 1, 1);
+            for (int i = 0; i < rowCount; ++i) {
+                LocalDate date = start.plusDays(random.nextInt(30));
+                LocalTime timeFrom = LocalTime.of(random.nextInt(22), random.nextInt(60));
+                LocalTime timeTo = timeFrom.plusMinutes(15 + random.nextInt(120));
+
+                Row row = sheet.createRow(i);
+                row.createCell(0).setCellValue("SLOT-" + i);
+                row.createCell(1).setCellValue(date);
+                row.getCell(1).setCellStyle(dateStyle);
+                row.createCell(2).setCellValue(LocalDateTime.of(date, timeFrom));
+                row.getCell(2).setCellStyle(timeStyle);
+                row.createCell(3).setCellValue(LocalDateTime.of(date, timeTo));
+                row.getCell(3).setCellStyle(timeStyle);
+            }
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            workbook.write(out);
+            xlsx = out.toByteArray();
+        } finally {
+            workbook.dispose();
+            workbook.close();
+        }
+    }
+
+    @Benchmark
+    public void streaming(Rows rows, Blackhole blackhole) throws IOException, OpenXML4JException, SAXException {
+        OPCPackage pkg = OPCPackage.open(new ByteArrayInputStream(xlsx));
+        try {
+            SlotSheetParser.parse(pkg, 1, 10_000, chunk -> {
+                rows.rows += chunk.size();
+                blackhole.consume(chunk);
+            });
+        } finally {
+            pkg.revert();
+        }
+    }
+
+    /**
+     * The import as it was before the streaming parser: the whole workbook is loaded into memory.
+     */
+    @Benchmark
+    public void workbook(Rows rows, Blackhole blackhole) throws IOException, OpenXML4JException {
+        XSSFWorkbook workbook = new XSSFWorkbook(OPCPackage.open(new ByteArrayInputStream(xlsx)));
+        XSSFSheet sheet = workbook.getSheetAt(0);
+
+        List<Slot> slots = new ArrayList<>();
+        for (int i = 0; i <= sheet.getLastRowNum(); ++i) {
+            XSSFRow row = sheet.getRow(i);
+            LocalDate date = row.getCell(1).getDateCellValue().toInstant()
+                    .atZone(ZoneId.systemDefault()).toLocalDate();
+            LocalTime timeFrom = row.getCell(2).getDateCellValue().toInstant()
+                    .atZone(ZoneId.systemDefault()).toLocalTime();
+            LocalTime timeTo = row.getCell(3).getDateCellValue().toInstant()
+                    .atZone(ZoneId.systemDefault()).toLocalTime();
+            slots.add(new Slot(0, row.getCell(0).getStringCellValue(), 1, date, timeFrom, timeTo, null,
+                    LocalDateTime.now()));
+        }
+        rows.rows += slots.size();
+        blackhole.consume(slots);
+    }
+}
@@ -0,0 +1,46 @@
+package warehouse_planning.algorithm;
+
+/**
+ * Result of {@link CapacityPlanning}.
+ *
+ * @author agavrikov
+ */
+public class CapacityPlan {
+
+    private final int conveyorCount;
+    private final int[] rejected;
+    private final int peakOverlap;
+    private final long[] peakMinutes;
+
+    CapacityPlan(int conveyorCount, int[] rejected, int peakOverlap, long[] peakMinutes) {
+        this.conveyorCount = conveyorCount;
+        this.rejected = rejected;
+        this.peakOverlap = peakOverlap;
+        this.peakMinutes = peakMinutes;
+    }
+
+    public int getConveyorCount() {
+        return conveyorCount;
+    }
+
+    /**
+     * @return buffer indexes of the rejected slots in start order
+     */
+    public int[] getRejected() {
+        return rejected;
+    }
+
+    /**
+     * @return maximal number of slots requested at once, including the rejected ones
+     */
+    public int getPeakOverlap() {
+        return peakOverlap;
+    }
+
+    /**
+     * @return epoch minutes at which the peak overlap starts, at most the first 100
+     */
+    public long[] getPeakMinutes() {
+        return peakMinutes;
+    }
+}
@@ -0,0 +1,129 @@
+package warehouse_planning.algorithm;
+
+import java.util.Arrays;
+
+/**
+ * Planning on a fixed number of conveyors. Slots that do not fit are rejected and stay free (conveyor 0).
+ * <p>
+ * The accepted slots are chosen by a sweep in start order that keeps the slots running at the current start in a
+ * heap keyed on their end. With at most {@code capacity} of them overlapping anywhere, the accepted slots are then
+ * planned by {@link WarehousePlanning} on at most {@code capacity} conveyors. Both steps are O(n log n).
+ *
+ * @author agavrikov
+ */
+public class CapacityPlanning {
+
+    private static final int PEAK_LIMIT = 100;
+
+    public enum Mode {
+        /** a slot is rejected if all conveyors are busy when it starts */
+        FIRST_COME,
+        /**
+         * the number of accepted slots is maximal: when a slot overflows the conveyors, the running slot that ends
+         * last is rejected, which may be the new slot itself
+         */
+        MAX_ACCEPTED
+    }
+
+    public static CapacityPlan planning(SlotBuffer slots, int capacity, Mode mode) {
+        return planning(slots, slots.parallelSort(), capacity, mode);
+    }
+
+    /**
+     * @param order slot indexes in start order, as returned by {@link SlotBuffer#sort()}
+     */
+    public static CapacityPlan planning(SlotBuffer slots, int[] order, int capacity, Mode mode) {
+        boolean[] rejected = new boolean[slots.size()];
+        int rejectedCount = mode == Mode.MAX_ACCEPTED
+                ? maxAccepted(slots, order, capacity, rejected)
+                : firstCome(slots, order, capacity, rejected);
+
+        int[] accepted = new int[order.length - rejectedCount];
+        int[] rejectedSlots = new int[rejectedCount];
+        int acceptedCount = 0;
+        rejectedCount = 0;
+        for (int i : order) {
+            if (rejected[i]) {
+                slots.setConveyor(i, 0);
+                rejectedSlots[rejectedCount++] = i;
+            } else {
+                accepted[acceptedCount++] = i;
+            }
+        }
+        int conveyorCount = WarehousePlanning.planning(slots, accepted, 0, accepted.length);
+        return peaks(slots, order, conveyorCount, rejectedSlots);
+    }
+
+    private static int firstCome(SlotBuffer slots, int[] order, int capacity, boolean[] rejected) {
+        ConveyorHeap running = new ConveyorHeap(capacity);
+        int rejectedCount = 0;
+        for (int i : order) {
+            while (!running.isEmpty() && running.peekFreeAt() <= slots.getMinuteFrom(i)) {
+                running.poll();
+            }
+            if (running.size() < capacity) {
+                running.add(slots.getMinuteTo(i), i);
+            } else {
+                rejected[i] = true;
+                rejectedCount++;
+            }
+        }
+        return rejectedCount;
+    }
+
+    private static int maxAccepted(SlotBuffer slots, int[] order, int capacity, boolean[] rejected) {
+        ConveyorHeap byEnd = new ConveyorHeap(capacity + 1);
+        // negated end minutes, the slot that ends last on top
+        ConveyorHeap byLastEnd = new ConveyorHeap(capacity + 1);
+        boolean[] ended = new boolean[slots.size()];
+        int running = 0;
+        int rejectedCount = 0;
+        for (int i : order) {
+            while (!byEnd.isEmpty() && byEnd.peekFreeAt() <= slots.getMinuteFrom(i)) {
+                int j = byEnd.poll();
+                if (!rejected[j]) {
+                    ended[j] = true;
+                    running--;
+                }
+            }
+            byEnd.add(slots.getMinuteTo(i), i);
+            byLastEnd.add(-slots.getMinuteTo(i), i);
+            if (++running > capacity) {
+                int j = byLastEnd.poll();
+                while (rejected[j] || ended[j]) {
+                    j = byLastEnd.poll();
+                }
+                rejected[j] = true;
+                rejectedCount++;
+                running--;
+            }
+        }
+        return rejectedCount;
+    }
+
+    /**
+     * Finds the maximal number of slots requested at once, before rejection, and the minutes it is reached at.
+     */
+    private static CapacityPlan peaks(SlotBuffer slots, int[] order, int conveyorCount, int[] rejected) {
+        ConveyorHeap running = new ConveyorHeap(64);
+        long[] peakMinutes = new long[PEAK_LIMIT];
+        int peakCount = 0;
+        int peak = 0;
+        for (int i : order) {
+            long minuteFrom = slots.getMinuteFrom(i);
+            while (!running.isEmpty() && running.peekFreeAt() <= minuteFrom) {
+                running.poll();
+            }
+            running.add(slots.getMinuteTo(i), i);
+            if (running.size() > peak) {
+                peak = running.size();
+                peakCount = 0;
+            }
+            if (running.size() == peak && peakCount < PEAK_LIMIT &&
+                    (peakCount == 0 || peakMinutes[peakCount - 1] != minuteFrom)) {
+                peakMinutes[peakCount++] = minuteFrom;
+            }
+        }
+        return new CapacityPlan(conveyorCount, rejected, peak, Arrays.copyOf(peakMinutes, peakCount));
+    }
+}
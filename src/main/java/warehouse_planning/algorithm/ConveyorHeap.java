@@ -0,0 +1,95 @@
+package warehouse_planning.algorithm;
+
+import java.util.Arrays;
+
+/**
+ * Binary min-heap of conveyors keyed on the minute at which each conveyor becomes free. Capacity planning also
+ * keeps slot indexes in it, keyed on their end minute.
+ *
+ * @author agavrikov
+ */
+class ConveyorHeap {
+
+    private long[] freeAt;
+    private int[] conveyors;
+    private int size;
+
+    ConveyorHeap(int capacity) {
+        freeAt = new long[Math.max(capacity, 1)];
+        conveyors = new int[freeAt.length];
+    }
+
+    boolean isEmpty() {
+        return size == 0;
+    }
+
+    int size() {
+        return size;
+    }
+
+    long peekFreeAt() {
+        return freeAt[0];
+    }
+
+    int peekConveyor() {
+        return conveyors[0];
+    }
+
+    void add(long minute, int conveyor) {
+        if (size == freeAt.length) {
+            freeAt = Arrays.copyOf(freeAt, size * 2);
+            conveyors = Arrays.copyOf(conveyors, size * 2);
+        }
+        int i = size++;
+        while (i > 0) {
+            int parent = (i - 1) >>> 1;
+            if (freeAt[parent] <= minute) {
+                break;
+            }
+            freeAt[i] = freeAt[parent];
+            conveyors[i] = conveyors[parent];
+            i = parent;
+        }
+        freeAt[i] = minute;
+        conveyors[i] = conveyor;
+    }
+
+    /**
+     * Removes the conveyor on top of the heap.
+     *
+     * @return the removed conveyor
+     */
+    int poll() {
+        int top = conveyors[0];
+        if (--size > 0) {
+            siftDown(freeAt[size], conveyors[size]);
+        }
+        return top;
+    }
+
+    /**
+     * Moves the conveyor on top of the heap to a new free minute.
+     */
+    void replaceTop(long minute) {
+        siftDown(minute, conveyors[0]);
+    }
+
+    private void siftDown(long minute, int conveyor) {
+        int i = 0;
+        int half = size >>> 1;
+        while (i < half) {
+            int child = 2 * i + 1;
+            if (child + 1 < size && freeAt[child + 1] < freeAt[child]) {
+                child++;
+            }
+            if (minute <= freeAt[child]) {
+                break;
+            }
+            freeAt[i] = freeAt[child];
+            conveyors[i] = conveyors[child];
+            i = child;
+        }
+        freeAt[i] = minute;
+        conveyors[i] = conveyor;
+    }
+}
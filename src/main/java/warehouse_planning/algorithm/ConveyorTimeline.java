@@ -0,0 +1,80 @@
+package warehouse_planning.algorithm;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Occupied intervals of every conveyor of a warehouse, indexed by start minute, used to fit new slots into an
+ * existing plan without re-planning the warehouse.
+ *
+ * @author agavrikov
+ */
+public class ConveyorTimeline {
+
+    private final List<TreeMap<Long, Long>> conveyors = new ArrayList<>();
+
+    public static ConveyorTimeline of(SlotBuffer slots) {
+        ConveyorTimeline timeline = new ConveyorTimeline();
+        for (int i = 0; i < slots.size(); ++i) {
+            if (slots.getConveyor(i) != 0) {
+                timeline.add(slots.getConveyor(i), slots.getMinuteFrom(i), slots.getMinuteTo(i));
+            }
+        }
+        return timeline;
+    }
+
+    public void add(int conveyor, long minuteFrom, long minuteTo) {
+        while (conveyors.size() < conveyor) {
+            conveyors.add(new TreeMap<>());
+        }
+        conveyors.get(conveyor - 1).put(minuteFrom, minuteTo);
+    }
+
+    /**
+     * Frees the interval if it is on the conveyor.
+     */
+    public void remove(int conveyor, long minuteFrom, long minuteTo) {
+        if (conveyor > 0 && conveyor <= conveyors.size()) {
+            conveyors.get(conveyor - 1).remove(minuteFrom, minuteTo);
+        }
+    }
+
+    /**
+     * Puts the interval on the first conveyor that is free for all of it, a new conveyor is opened if there is none.
+     *
+     * @return conveyor of the interval
+     */
+    public int assign(long minuteFrom, long minuteTo) {
+        for (int i = 0; i < conveyors.size(); ++i) {
+            if (isFree(conveyors.get(i), minuteFrom, minuteTo)) {
+                conveyors.get(i).put(minuteFrom, minuteTo);
+                return i + 1;
+            }
+        }
+        add(conveyors.size() + 1, minuteFrom, minuteTo);
+        return conveyors.size();
+    }
+
+    public int conveyorCount() {
+        return conveyors.size();
+    }
+
+    public int intervalCount() {
+        int count = 0;
+        for (TreeMap<Long, Long> intervals : conveyors) {
+            count += intervals.size();
+        }
+        return count;
+    }
+
+    private static boolean isFree(TreeMap<Long, Long> intervals, long minuteFrom, long minuteTo) {
+        Map.Entry<Long, Long> before = intervals.floorEntry(minuteFrom);
+        if (before != null && before.getValue() > minuteFrom) {
+            return false;
+        }
+        Map.Entry<Long, Long> after = intervals.ceilingEntry(minuteFrom);
+        return after == null || after.getKey() > minuteFrom && after.getKey() >= minuteTo;
+    }
+}
@@ -0,0 +1,95 @@
+package warehouse_planning.algorithm;
+
+import java.util.Arrays;
+
+/**
+ * Start and end minutes of all slots of a warehouse, each sorted on its own, for counting concurrent slots.
+ * A slot occupies the minutes from its start up to, not including, its end.
+ *
+ * @author agavrikov
+ */
+public class OccupancyTimeline {
+
+    private final long[] starts;
+    private final long[] ends;
+
+    private OccupancyTimeline(long[] starts, long[] ends) {
+        this.starts = starts;
+        this.ends = ends;
+    }
+
+    public static OccupancyTimeline of(SlotBuffer slots) {
+        long[] starts = new long[slots.size()];
+        long[] ends = new long[slots.size()];
+        for (int i = 0; i < slots.size(); ++i) {
+            starts[i] = slots.getMinuteFrom(i);
+            ends[i] = slots.getMinuteTo(i);
+        }
+        Arrays.parallelSort(starts);
+        Arrays.parallelSort(ends);
+        return new OccupancyTimeline(starts, ends);
+    }
+
+    public int size() {
+        return starts.length;
+    }
+
+    /**
+     * Sweeps the start and end events of the window {@code [fromMinute, fromMinute + bucketCount * bucketMinutes)}.
+     *
+     * @return maximal number of concurrent slots in each bucket
+     */
+    public int[] occupancy(long fromMinute, int bucketMinutes, int bucketCount) {
+        int[] buckets = new int[bucketCount];
+        int i = upperBound(starts, fromMinute);
+        int j = upperBound(ends, fromMinute);
+        int level = i - j;
+        for (int bucket = 0; bucket < bucketCount; ++bucket) {
+            long bucketStart = fromMinute + (long) bucket * bucketMinutes;
+            long bucketEnd = bucketStart + bucketMinutes;
+            while (j < ends.length && ends[j] <= bucketStart) {
+                level--;
+                j++;
+            }
+            while (i < starts.length && starts[i] <= bucketStart) {
+                level++;
+                i++;
+            }
+            int max = level;
+            while (i < starts.length && starts[i] < bucketEnd || j < ends.length && ends[j] < bucketEnd) {
+                long minute = i < starts.length ? starts[i] : Long.MAX_VALUE;
+                if (j < ends.length && ends[j] < minute) {
+                    minute = ends[j];
+                }
+                while (j < ends.length && ends[j] == minute) {
+                    level--;
+                    j++;
+                }
+                while (i < starts.length && starts[i] == minute) {
+                    level++;
+                    i++;
+                }
+                max = Math.max(max, level);
+            }
+            buckets[bucket] = max;
+        }
+        return buckets;
+    }
+
+    /**
+     * @return number of values {@code <= minute}
+     */
+    private static int upperBound(long[] values, long minute) {
+        int low = 0;
+        int high = values.length;
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (values[middle] <= minute) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        return low;
+    }
+}
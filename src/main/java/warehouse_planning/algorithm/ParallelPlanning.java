@@ -0,0 +1,62 @@
+package warehouse_planning.algorithm;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+
+/**
+ * Parallel version of {@link WarehousePlanning}.
+ * <p>
+ * The sorted timeline is cut at idle gaps, i.e. where a slot starts after every earlier slot has ended. Segments
+ * between gaps share no point in time, so each of them is planned on its own and its conveyors, numbered from 1,
+ * are the same physical conveyors as those of the other segments. The number of conveyors used is the maximum over
+ * the segments, which is still the minimum for the whole timeline.
+ *
+ * @author agavrikov
+ */
+public class ParallelPlanning {
+
+    private static final int MIN_SEGMENT_SIZE = 10_000;
+
+    /**
+     * @return number of conveyors used
+     */
+    public static int planning(SlotBuffer slots, ForkJoinPool pool) {
+        return planning(slots, pool.submit(slots::parallelSort).join(), pool);
+    }
+
+    /**
+     * @param order slot indexes in start order, as returned by {@link SlotBuffer#sort()}
+     * @return number of conveyors used
+     */
+    public static int planning(SlotBuffer slots, int[] order, ForkJoinPool pool) {
+        int segmentSize = Math.max(MIN_SEGMENT_SIZE, order.length / (pool.getParallelism() * 4));
+        if (order.length <= segmentSize) {
+            return WarehousePlanning.planning(slots, order, 0, order.length);
+        }
+
+        List<ForkJoinTask<Integer>> segments = new ArrayList<>();
+        int from = 0;
+        long minuteTo = Long.MIN_VALUE;
+        for (int k = 0; k < order.length; ++k) {
+            int i = order[k];
+            if (k - from >= segmentSize && slots.getMinuteFrom(i) >= minuteTo) {
+                segments.add(submit(pool, slots, order, from, k));
+                from = k;
+            }
+            minuteTo = Math.max(minuteTo, slots.getMinuteTo(i));
+        }
+        segments.add(submit(pool, slots, order, from, order.length));
+
+        int conveyorCount = 0;
+        for (ForkJoinTask<Integer> segment : segments) {
+            conveyorCount = Math.max(conveyorCount, segment.join());
+        }
+        return conveyorCount;
+    }
+
+    private static ForkJoinTask<Integer> submit(ForkJoinPool pool, SlotBuffer slots, int[] order, int from, int to) {
+        return pool.submit(() -> WarehousePlanning.planning(slots, order, from, to));
+    }
+}
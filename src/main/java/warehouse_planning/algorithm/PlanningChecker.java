@@ -0,0 +1,40 @@
+package warehouse_planning.algorithm;
+
+import java.util.Arrays;
+
+/**
+ * Verifies the result of {@link WarehousePlanning}: every slot has a conveyor and no two slots on one conveyor
+ * overlap. The slots are swept in the start order the planning used, keeping the minute each conveyor becomes free.
+ *
+ * @author agavrikov
+ */
+public class PlanningChecker {
+
+    /**
+     * @param order slot indexes in start order, as returned by {@link SlotBuffer#sort()}
+     */
+    public static boolean check(SlotBuffer slots, int[] order, int conveyorCount) {
+        return check(slots, order, conveyorCount, 0);
+    }
+
+    /**
+     * Verifies the result of {@link CapacityPlanning}, where {@code freeCount} slots are rejected.
+     */
+    public static boolean check(SlotBuffer slots, int[] order, int conveyorCount, int freeCount) {
+        long[] freeAt = new long[conveyorCount + 1];
+        Arrays.fill(freeAt, Long.MIN_VALUE);
+        int free = 0;
+        for (int i : order) {
+            int conveyor = slots.getConveyor(i);
+            if (conveyor == 0) {
+                free++;
+                continue;
+            }
+            if (conveyor > conveyorCount || freeAt[conveyor] > slots.getMinuteFrom(i)) {
+                return false;
+            }
+            freeAt[conveyor] = slots.getMinuteTo(i);
+        }
+        return free == freeCount;
+    }
+}
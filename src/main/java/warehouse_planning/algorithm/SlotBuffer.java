@@ -0,0 +1,200 @@
+package warehouse_planning.algorithm;
+
+import warehouse_planning.model.Slot;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * Compact planning model: slots are stored as epoch-minute start/end values in parallel primitive arrays,
+ * a free slot has conveyor {@code 0}.
+ * <p>
+ * Planning never moves the data, it works through the permutation returned by {@link #sort()}, so index {@code i}
+ * of the buffer always matches index {@code i} of the list it was built from.
+ *
+ * @author agavrikov
+ */
+public class SlotBuffer {
+
+    private long[] ids;
+    private long[] minutesFrom;
+    private long[] minutesTo;
+    private int[] conveyors;
+    private int size;
+    private boolean sorted;
+
+    public SlotBuffer(int capacity) {
+        capacity = Math.max(capacity, 16);
+        ids = new long[capacity];
+        minutesFrom = new long[capacity];
+        minutesTo = new long[capacity];
+        conveyors = new int[capacity];
+    }
+
+    public static SlotBuffer of(List<Slot> slots) {
+        SlotBuffer buffer = new SlotBuffer(slots.size());
+        for (Slot slot : slots) {
+            buffer.add(slot.getId(), slot.getMinuteFrom(), slot.getMinuteTo(),
+                    slot.isFree() ? 0 : slot.getConveyorId());
+        }
+        return buffer;
+    }
+
+    /**
+     * Copies conveyors back to the slots the buffer was built from.
+     *
+     * @return slots whose conveyor has changed
+     */
+    public List<Slot> applyTo(List<Slot> slots) {
+        List<Slot> changed = new ArrayList<>();
+        for (int i = 0; i < size; ++i) {
+            Slot slot = slots.get(i);
+            Integer conveyorId = conveyors[i] == 0 ? null : conveyors[i];
+            if (!Objects.equals(slot.getConveyorId(), conveyorId)) {
+                slot.setConveyorId(conveyorId);
+                changed.add(slot);
+            }
+        }
+        return changed;
+    }
+
+    public void add(long id, long minuteFrom, long minuteTo, int conveyor) {
+        if (size == ids.length) {
+            int capacity = size * 2;
+            ids = Arrays.copyOf(ids, capacity);
+            minutesFrom = Arrays.copyOf(minutesFrom, capacity);
+            minutesTo = Arrays.copyOf(minutesTo, capacity);
+            conveyors = Arrays.copyOf(conveyors, capacity);
+        }
+        sorted = sorted && (size == 0 || minuteFrom > minutesFrom[size - 1] ||
+                minuteFrom == minutesFrom[size - 1] && minuteTo >= minutesTo[size - 1]);
+        ids[size] = id;
+        minutesFrom[size] = minuteFrom;
+        minutesTo[size] = minuteTo;
+        conveyors[size] = conveyor;
+        ++size;
+    }
+
+    /**
+     * @return indexes of the slots ordered by start and then by end, the order of {@link Slot#compareTo(Slot)}
+     */
+    public int[] sort() {
+        return sort(false);
+    }
+
+    /**
+     * Same as {@link #sort()}, but sorts on the fork-join pool of the calling task, the common pool if it is not
+     * called from one.
+     */
+    public int[] parallelSort() {
+        return sort(true);
+    }
+
+    /**
+     * Marks the buffer as being in start order, e.g. before it is filled from a query ordered by start and end.
+     * The order is then checked by {@link #add}, and the sorts return the identity permutation while it holds.
+     */
+    public void markSorted() {
+        sorted = true;
+        for (int i = 1; i < size && sorted; ++i) {
+            sorted = minutesFrom[i] > minutesFrom[i - 1] ||
+                    minutesFrom[i] == minutesFrom[i - 1] && minutesTo[i] >= minutesTo[i - 1];
+        }
+    }
+
+    private int[] sort(boolean parallel) {
+        int[] order = new int[size];
+        if (size == 0) {
+            return order;
+        }
+        if (sorted) {
+            for (int i = 0; i < size; ++i) {
+                order[i] = i;
+            }
+            return order;
+        }
+        long minFrom = Long.MAX_VALUE;
+        long maxFrom = Long.MIN_VALUE;
+        long maxDuration = 0;
+        for (int i = 0; i < size; ++i) {
+            minFrom = Math.min(minFrom, minutesFrom[i]);
+            maxFrom = Math.max(maxFrom, minutesFrom[i]);
+            maxDuration = Math.max(maxDuration, minutesTo[i] - minutesFrom[i]);
+        }
+        int indexBits = bits(size - 1);
+        int durationBits = bits(maxDuration);
+        if (bits(maxFrom - minFrom) + durationBits + indexBits > 63) {
+            return sortBoxed();
+        }
+
+        // start, duration and index packed into one long sort in a single primitive pass
+        long[] keys = new long[size];
+        for (int i = 0; i < size; ++i) {
+            keys[i] = (minutesFrom[i] - minFrom) << (durationBits + indexBits)
+                    | (minutesTo[i] - minutesFrom[i]) << indexBits
+                    | i;
+        }
+        if (parallel) {
+            Arrays.parallelSort(keys);
+        } else {
+            Arrays.sort(keys);
+        }
+        long indexMask = (1L << indexBits) - 1;
+        for (int i = 0; i < size; ++i) {
+            order[i] = (int) (keys[i] & indexMask);
+        }
+        return order;
+    }
+
+    private int[] sortBoxed() {
+        Integer[] boxed = new Integer[size];
+        for (int i = 0; i < size; ++i) {
+            boxed[i] = i;
+        }
+        Arrays.sort(boxed, (a, b) -> minutesFrom[a] != minutesFrom[b]
+                ? Long.compare(minutesFrom[a], minutesFrom[b])
+                : Long.compare(minutesTo[a], minutesTo[b]));
+        int[] order = new int[size];
+        for (int i = 0; i < size; ++i) {
+            order[i] = boxed[i];
+        }
+        return order;
+    }
+
+    private static int bits(long value) {
+        return 64 - Long.numberOfLeadingZeros(value);
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public long getId(int i) {
+        return ids[i];
+    }
+
+    public long getMinuteFrom(int i) {
+        return minutesFrom[i];
+    }
+
+    public long getMinuteTo(int i) {
+        return minutesTo[i];
+    }
+
+    /**
+     * @return copy of the conveyors, e.g. to find the slots changed by planning
+     */
+    public int[] copyConveyors() {
+        return Arrays.copyOf(conveyors, size);
+    }
+
+    public int getConveyor(int i) {
+        return conveyors[i];
+    }
+
+    public void setConveyor(int i, int conveyor) {
+        conveyors[i] = conveyor;
+    }
+}
@@ -4,8 +4,53 @@ import warehouse_planning.model.Slot;
 
 import java.util.List;
 
+/**
+ * Assigns conveyors to slots so that no two slots on one conveyor overlap and the number of conveyors is minimal.
+ * <p>
+ * Slots are swept in start order while a min-heap keeps every conveyor keyed on the minute it becomes free.
+ * A slot reuses the conveyor that becomes free first if it is already free, otherwise a new conveyor is opened.
+ * Overnight slots end the next day, see {@link Slot#getMinuteTo()}.
+ *
+ * @author agavrikov
+ */
 public class WarehousePlanning {
 
-    public static void planning(List<Slot> slots) {
+    /**
+     * @return number of conveyors used
+     */
+    public static int planning(List<Slot> slots) {
+        SlotBuffer buffer = SlotBuffer.of(slots);
+        int conveyorCount = planning(buffer);
+        buffer.applyTo(slots);
+        return conveyorCount;
+    }
+
+    /**
+     * @return number of conveyors used
+     */
+    public static int planning(SlotBuffer slots) {
+        int[] order = slots.sort();
+        return planning(slots, order, 0, order.length);
+    }
+
+    /**
+     * Plans the slots {@code order[from]} to {@code order[to - 1]} on conveyors numbered from 1.
+     *
+     * @return number of conveyors used
+     */
+    static int planning(SlotBuffer slots, int[] order, int from, int to) {
+        ConveyorHeap conveyors = new ConveyorHeap(64);
+
+        for (int k = from; k < to; ++k) {
+            int i = order[k];
+            if (!conveyors.isEmpty() && conveyors.peekFreeAt() <= slots.getMinuteFrom(i)) {
+                slots.setConveyor(i, conveyors.peekConveyor());
+                conveyors.replaceTop(slots.getMinuteTo(i));
+            } else {
+                slots.setConveyor(i, conveyors.size() + 1);
+                conveyors.add(slots.getMinuteTo(i), conveyors.size() + 1);
+            }
+        }
+        return conveyors.size();
     }
 }
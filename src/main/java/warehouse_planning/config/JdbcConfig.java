@@ -2,11 +2,15 @@ package warehouse_planning.config;
 
 import javax.sql.DataSource;
 
+import com.zaxxer.hikari.HikariConfig;
+import com.zaxxer.hikari.HikariDataSource;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.ComponentScan;
 import org.springframework.context.annotation.Configuration;
-import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
 
 /**
  * @author agavrikov
@@ -26,14 +30,59 @@ public class JdbcConfig {
     @Value("${password}")
     private String password;
 
+    @Value("${pool.size:10}")
+    private int poolSize;
+    @Value("${pool.minIdle:2}")
+    private int poolMinIdle;
+    @Value("${pool.connectionTimeout:30000}")
+    private long connectionTimeout;
+    @Value("${pool.idleTimeout:600000}")
+    private long idleTimeout;
+    @Value("${pool.maxLifetime:1800000}")
+    private long maxLifetime;
+    @Value("${pool.prepareThreshold:5}")
+    private int prepareThreshold;
+    @Value("${pool.statementCacheQueries:256}")
+    private int statementCacheQueries;
+    @Value("${pool.statementCacheSizeMiB:5}")
+    private int statementCacheSizeMiB;
+
+    @Bean
+    public PoolMetrics poolMetrics() {
+        return new PoolMetrics();
+    }
+
+    @Bean(destroyMethod = "close")
+    public DataSource dataSource(PoolMetrics poolMetrics) {
+        HikariConfig config = new HikariConfig();
+        config.setPoolName("warehouse_planning");
+        config.setDriverClassName("org.postgresql.Driver");
+        config.setJdbcUrl("jdbc:postgresql://" + host + ":" + port + "/" + database);
+        config.setUsername(username);
+        config.setPassword(password);
+
+        config.setMaximumPoolSize(poolSize);
+        config.setMinimumIdle(poolMinIdle);
+        config.setConnectionTimeout(connectionTimeout);
+        config.setIdleTimeout(idleTimeout);
+        config.setMaxLifetime(maxLifetime);
+
+        // server-side prepared statements and their per-connection cache in PgJDBC
+        config.addDataSourceProperty("prepareThreshold", prepareThreshold);
+        config.addDataSourceProperty("preparedStatementCacheQueries", statementCacheQueries);
+        config.addDataSourceProperty("preparedStatementCacheSizeMiB", statementCacheSizeMiB);
+
+        config.setMetricsTrackerFactory(poolMetrics);
+        return new HikariDataSource(config);
+    }
+
+    @Bean
+    public PlatformTransactionManager transactionManager(DataSource dataSource) {
+        return new DataSourceTransactionManager(dataSource);
+    }
+
     @Bean
-    public DataSource dataSource() {
-        DriverManagerDataSource dataSource = new DriverManagerDataSource();
-        dataSource.setDriverClassName("org.postgresql.Driver");
-        dataSource.setUrl("jdbc:postgresql://" + host + ":" + port + "/" + database);
-        dataSource.setUsername(username);
-        dataSource.setPassword(password);
-
-        return dataSource;
+    public TransactionTemplate transactionTemplate(PlatformTransactionManager transactionManager) {
+        return new TransactionTemplate(transactionManager);
     }
 }
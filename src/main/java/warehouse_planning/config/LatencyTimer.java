@@ -0,0 +1,83 @@
+package warehouse_planning.config;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Call count, latency and processed items of one operation. Latencies go into power-of-two nanosecond buckets,
+ * so percentiles are upper bounds within a factor of two. Recording does not allocate.
+ *
+ * @author agavrikov
+ */
+public class LatencyTimer {
+
+    private final LongAdder count = new LongAdder();
+    private final LongAdder items = new LongAdder();
+    private final LongAdder totalNanos = new LongAdder();
+    private final LongAccumulator maxNanos = new LongAccumulator(Math::max, 0);
+    private final AtomicLongArray buckets = new AtomicLongArray(Long.SIZE);
+
+    /**
+     * @param startNanos {@link System#nanoTime()} at the start of the operation
+     */
+    public void record(long startNanos) {
+        record(startNanos, 0);
+    }
+
+    /**
+     * @param startNanos {@link System#nanoTime()} at the start of the operation
+     * @param itemCount  number of slots or rows processed by the operation
+     */
+    public void record(long startNanos, long itemCount) {
+        long nanos = Math.max(System.nanoTime() - startNanos, 1);
+        count.increment();
+        items.add(itemCount);
+        totalNanos.add(nanos);
+        maxNanos.accumulate(nanos);
+        buckets.incrementAndGet(Long.SIZE - 1 - Long.numberOfLeadingZeros(nanos));
+    }
+
+    public long getCount() {
+        return count.sum();
+    }
+
+    public Map<String, Object> toMap() {
+        Map<String, Object> metrics = new LinkedHashMap<>();
+        long calls = count.sum();
+        long nanos = totalNanos.sum();
+        long itemCount = items.sum();
+        metrics.put("count", calls);
+        metrics.put("items", itemCount);
+        metrics.put("totalMillis", TimeUnit.NANOSECONDS.toMillis(nanos));
+        metrics.put("meanMillis", calls == 0 ? 0 : millis(nanos / calls));
+        metrics.put("p50Millis", millis(percentile(calls, 0.5)));
+        metrics.put("p90Millis", millis(percentile(calls, 0.9)));
+        metrics.put("p99Millis", millis(percentile(calls, 0.99)));
+        metrics.put("maxMillis", millis(maxNanos.get()));
+        metrics.put("itemsPerSecond", nanos == 0 ? 0 : itemCount * 1_000_000_000 / nanos);
+        return metrics;
+    }
+
+    /**
+     * @return upper bound of the bucket holding the percentile, at most the maximum
+     */
+    private long percentile(long calls, double percentile) {
+        long rank = (long) Math.ceil(calls * percentile);
+        long seen = 0;
+        for (int i = 0; i < Long.SIZE - 1; ++i) {
+            seen += buckets.get(i);
+            if (seen >= rank && seen > 0) {
+                return Math.min((1L << (i + 1)) - 1, maxNanos.get());
+            }
+        }
+        return maxNanos.get();
+    }
+
+    private static double millis(long nanos) {
+        return Math.round(nanos / 1_000.) / 1_000.;
+    }
+}
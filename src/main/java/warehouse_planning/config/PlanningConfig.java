@@ -0,0 +1,24 @@
+package warehouse_planning.config;
+
+import java.util.concurrent.ForkJoinPool;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * @author agavrikov
+ */
+@Configuration
+public class PlanningConfig {
+
+    /**
+     * Pool for the CPU work of planning, the segments of a warehouse, {@code planning.parallelism} caps the number of
+     * threads, 0 means one per core. Nothing that waits on the database or on a planning lock runs on it. The sorts of
+     * the slots are forked on it rather than on the common pool.
+     */
+    @Bean(destroyMethod = "shutdown")
+    public ForkJoinPool planningPool(@Value("${planning.parallelism:0}") int parallelism) {
+        return new ForkJoinPool(parallelism > 0 ? parallelism : Runtime.getRuntime().availableProcessors());
+    }
+}
@@ -0,0 +1,69 @@
+package warehouse_planning.config;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+import com.zaxxer.hikari.metrics.IMetricsTracker;
+import com.zaxxer.hikari.metrics.MetricsTrackerFactory;
+import com.zaxxer.hikari.metrics.PoolStats;
+
+/**
+ * Connection pool metrics: pool occupancy as reported by the pool and the latency of acquiring a connection.
+ *
+ * @author agavrikov
+ */
+public class PoolMetrics implements MetricsTrackerFactory, IMetricsTracker {
+
+    private volatile PoolStats poolStats;
+
+    private final LongAdder acquired = new LongAdder();
+    private final LongAdder acquireNanos = new LongAdder();
+    private final LongAccumulator maxAcquireNanos = new LongAccumulator(Math::max, 0);
+    private final LongAdder usageMillis = new LongAdder();
+    private final LongAdder timeouts = new LongAdder();
+
+    @Override
+    public IMetricsTracker create(String poolName, PoolStats poolStats) {
+        this.poolStats = poolStats;
+        return this;
+    }
+
+    @Override
+    public void recordConnectionAcquiredNanos(long elapsedAcquiredNanos) {
+        acquired.increment();
+        acquireNanos.add(elapsedAcquiredNanos);
+        maxAcquireNanos.accumulate(elapsedAcquiredNanos);
+    }
+
+    @Override
+    public void recordConnectionUsageMillis(long elapsedBorrowedMillis) {
+        usageMillis.add(elapsedBorrowedMillis);
+    }
+
+    @Override
+    public void recordConnectionTimeout() {
+        timeouts.increment();
+    }
+
+    public Map<String, Object> toMap() {
+        Map<String, Object> metrics = new LinkedHashMap<>();
+        PoolStats stats = poolStats;
+        if (stats != null) {
+            metrics.put("total", stats.getTotalConnections());
+            metrics.put("active", stats.getActiveConnections());
+            metrics.put("idle", stats.getIdleConnections());
+            metrics.put("waiting", stats.getPendingThreads());
+            metrics.put("max", stats.getMaxConnections());
+        }
+        long count = acquired.sum();
+        metrics.put("acquired", count);
+        metrics.put("acquireMeanMicros", count == 0 ? 0 : TimeUnit.NANOSECONDS.toMicros(acquireNanos.sum() / count));
+        metrics.put("acquireMaxMicros", TimeUnit.NANOSECONDS.toMicros(maxAcquireNanos.get()));
+        metrics.put("usageMeanMillis", count == 0 ? 0 : usageMillis.sum() / count);
+        metrics.put("timeouts", timeouts.sum());
+        return metrics;
+    }
+}
@@ -0,0 +1,115 @@
+package warehouse_planning.config;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.springframework.stereotype.Component;
+
+/**
+ * Timings of the slot hot paths: planning phases, imports, exports, conveyor write-back and paged queries.
+ *
+ * @author agavrikov
+ */
+@Component
+public class SlotMetrics {
+
+    private final LatencyTimer planning = new LatencyTimer();
+    private final LatencyTimer planningLoad = new LatencyTimer();
+    private final LatencyTimer planningPlan = new LatencyTimer();
+    private final LatencyTimer planningWrite = new LatencyTimer();
+    private final LatencyTimer download = new LatencyTimer();
+    private final LatencyTimer export = new LatencyTimer();
+    private final LatencyTimer saveBatch = new LatencyTimer();
+    private final LatencyTimer copyBatch = new LatencyTimer();
+    private final LatencyTimer upsertBatch = new LatencyTimer();
+    private final LatencyTimer updateConveyors = new LatencyTimer();
+    private final LatencyTimer pageQuery = new LatencyTimer();
+    private final LatencyTimer countQuery = new LatencyTimer();
+
+    private final LongAdder conveyors = new LongAdder();
+    private final LongAccumulator maxConveyors = new LongAccumulator(Math::max, 0);
+    private final LongAdder planningConflicts = new LongAdder();
+
+    public void recordConveyors(int conveyorCount) {
+        conveyors.add(conveyorCount);
+        maxConveyors.accumulate(conveyorCount);
+    }
+
+    /**
+     * Counts a planning that was made again because the slots changed while it ran.
+     */
+    public void recordPlanningConflict() {
+        planningConflicts.increment();
+    }
+
+    public Map<String, Object> toMap() {
+        Map<String, Object> metrics = new LinkedHashMap<>();
+        metrics.put("planning", planning.toMap());
+        metrics.put("planningLoad", planningLoad.toMap());
+        metrics.put("planningPlan", planningPlan.toMap());
+        metrics.put("planningWrite", planningWrite.toMap());
+        long plannings = planning.getCount();
+        metrics.put("conveyorsMean", plannings == 0 ? 0 : conveyors.sum() / plannings);
+        metrics.put("conveyorsMax", maxConveyors.get());
+        metrics.put("planningConflicts", planningConflicts.sum());
+        metrics.put("download", download.toMap());
+        metrics.put("export", export.toMap());
+        metrics.put("saveBatch", saveBatch.toMap());
+        metrics.put("copyBatch", copyBatch.toMap());
+        metrics.put("upsertBatch", upsertBatch.toMap());
+        metrics.put("updateConveyors", updateConveyors.toMap());
+        metrics.put("pageQuery", pageQuery.toMap());
+        metrics.put("countQuery", countQuery.toMap());
+        return metrics;
+    }
+
+    public LatencyTimer getPlanning() {
+        return planning;
+    }
+
+    public LatencyTimer getPlanningLoad() {
+        return planningLoad;
+    }
+
+    public LatencyTimer getPlanningPlan() {
+        return planningPlan;
+    }
+
+    public LatencyTimer getPlanningWrite() {
+        return planningWrite;
+    }
+
+    public LatencyTimer getDownload() {
+        return download;
+    }
+
+    public LatencyTimer getExport() {
+        return export;
+    }
+
+    public LatencyTimer getSaveBatch() {
+        return saveBatch;
+    }
+
+    public LatencyTimer getCopyBatch() {
+        return copyBatch;
+    }
+
+    public LatencyTimer getUpsertBatch() {
+        return upsertBatch;
+    }
+
+    public LatencyTimer getUpdateConveyors() {
+        return updateConveyors;
+    }
+
+    public LatencyTimer getPageQuery() {
+        return pageQuery;
+    }
+
+    public LatencyTimer getCountQuery() {
+        return countQuery;
+    }
+}
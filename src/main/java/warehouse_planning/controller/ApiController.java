@@ -0,0 +1,148 @@
+package warehouse_planning.controller;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.ServletWebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import warehouse_planning.model.Slot;
+import warehouse_planning.model.SlotCursor;
+import warehouse_planning.model.SlotFilter;
+import warehouse_planning.model.SlotPage;
+import warehouse_planning.model.Warehouse;
+import warehouse_planning.service.SlotService;
+import warehouse_planning.service.WarehouseService;
+
+/**
+ * JSON API over the same queries as the pages of {@link WarehouseController}. Slot filters take the same parameters
+ * as the slot pages, pages are seek pages linked by the {@code next}/{@code prev} cursors. Reads carry the entity
+ * tag of the warehouse version and are answered with 304 while it is current.
+ *
+ * @author agavrikov
+ */
+@RestController
+@RequestMapping("/api/")
+public class ApiController {
+
+    private static final String NDJSON = "application/x-ndjson";
+
+    private final SlotService slotService;
+    private final WarehouseService warehouseService;
+    private final ObjectWriter slotWriter;
+    private final int pageSize;
+    private final int maxPageSize;
+
+    @GetMapping(value = "warehouses", produces = MediaType.APPLICATION_JSON_VALUE)
+    public List<Warehouse> getWarehouses(ServletWebRequest request) {
+        if (ConditionalRequests.isNotModified(request, warehouseService.getWarehousesVersion())) {
+            return null;
+        }
+        return warehouseService.getWarehouses();
+    }
+
+    @GetMapping(value = "warehouses/{id}", produces = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<Warehouse> getWarehouse(@PathVariable long id, ServletWebRequest request) {
+        if (ConditionalRequests.isNotModified(request, warehouseService.getWarehousesVersion())) {
+            return null;
+        }
+        List<Warehouse> warehouses = warehouseService.getWarehouse(id);
+        return warehouses.isEmpty() ? ResponseEntity.notFound().build() : ResponseEntity.ok(warehouses.get(0));
+    }
+
+    @GetMapping(value = "warehouses/{id}/slots", produces = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<SlotPage> getSlots(@PathVariable long id, @RequestParam(required = false) String guid,
+        @RequestParam(required = false) Integer conveyorId,
+        @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate date,
+        @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate dateFrom,
+        @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.TIME) LocalTime timeFrom,
+        @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate dateTo,
+        @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.TIME) LocalTime timeTo,
+        @RequestParam(required = false) String after, @RequestParam(required = false) String before,
+        @RequestParam(required = false, defaultValue = "false") boolean last,
+        @RequestParam(required = false) Integer limit, ServletWebRequest request) {
+        if (limit != null && (limit <= 0 || limit > maxPageSize)) {
+            return ResponseEntity.badRequest().build();
+        }
+        if (ConditionalRequests.isNotModified(request, warehouseService.getVersion(id))) {
+            return null;
+        }
+        SlotFilter filter = new SlotFilter(guid, conveyorId, date, dateFrom, timeFrom, dateTo, timeTo);
+        return ResponseEntity.ok(slotService.getSlots(id, filter, SlotCursor.decode(after),
+                SlotCursor.decode(before), last, limit != null ? limit : pageSize));
+    }
+
+    @GetMapping(value = "warehouses/{id}/slots/count", produces = MediaType.APPLICATION_JSON_VALUE)
+    public Map<String, Integer> getSlotCount(@PathVariable long id, @RequestParam(required = false) String guid,
+        @RequestParam(required = false) Integer conveyorId,
+        @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate date,
+        @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate dateFrom,
+        @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.TIME) LocalTime timeFrom,
+        @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate dateTo,
+        @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.TIME) LocalTime timeTo,
+        ServletWebRequest request) {
+        if (ConditionalRequests.isNotModified(request, warehouseService.getVersion(id))) {
+            return null;
+        }
+        SlotFilter filter = new SlotFilter(guid, conveyorId, date, dateFrom, timeFrom, dateTo, timeTo);
+        return Collections.singletonMap("count", slotService.getSlotCount(id, filter));
+    }
+
+    /**
+     * All matching slots in listing order, one JSON object per line, written while they are read from the database.
+     */
+    @GetMapping(value = "warehouses/{id}/slots/stream", produces = NDJSON)
+    public ResponseEntity<StreamingResponseBody> streamSlots(@PathVariable long id,
+        @RequestParam(required = false) String guid, @RequestParam(required = false) Integer conveyorId,
+        @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate date,
+        @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate dateFrom,
+        @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.TIME) LocalTime timeFrom,
+        @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate dateTo,
+        @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.TIME) LocalTime timeTo,
+        ServletWebRequest request) {
+        if (ConditionalRequests.isNotModified(request, warehouseService.getVersion(id))) {
+            return null;
+        }
+        SlotFilter filter = new SlotFilter(guid, conveyorId, date, dateFrom, timeFrom, dateTo, timeTo);
+        StreamingResponseBody body = out -> {
+            try (JsonGenerator generator = slotWriter.getFactory().createGenerator(out)) {
+                generator.setRootValueSeparator(null);
+                slotService.forEachSlot(id, filter, slot -> {
+                    try {
+                        slotWriter.writeValue(generator, slot);
+                        generator.writeRaw('\n');
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                });
+            }
+        };
+        return ResponseEntity.ok().contentType(MediaType.parseMediaType(NDJSON)).body(body);
+    }
+
+    @Autowired
+    public ApiController(SlotService slotService, WarehouseService warehouseService,
+                         ObjectMapper objectMapper, @Value("${api.pageSize:100}") int pageSize,
+                         @Value("${api.maxPageSize:1000}") int maxPageSize) {
+        this.slotService = slotService;
+        this.warehouseService = warehouseService;
+        this.slotWriter = objectMapper.writerFor(Slot.class).without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+        this.pageSize = pageSize;
+        this.maxPageSize = maxPageSize;
+    }
+}
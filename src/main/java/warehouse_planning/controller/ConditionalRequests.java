@@ -0,0 +1,36 @@
+package warehouse_planning.controller;
+
+import javax.servlet.http.HttpServletResponse;
+
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.web.context.request.ServletWebRequest;
+
+import warehouse_planning.model.WarehouseVersion;
+
+/**
+ * Conditional GETs validated by the stored {@link WarehouseVersion}. Clients must revalidate on every use, a request
+ * whose {@code If-None-Match} is current is answered with 304 before anything is loaded.
+ *
+ * @author agavrikov
+ */
+final class ConditionalRequests {
+
+    private static final String NO_CACHE = CacheControl.noCache().getHeaderValue();
+
+    private ConditionalRequests() {
+    }
+
+    /**
+     * Sets the validators on the response.
+     *
+     * @return {@code true} if the response is a 304 and the handler has to return {@code null}
+     */
+    static boolean isNotModified(ServletWebRequest request, WarehouseVersion version) {
+        HttpServletResponse response = request.getResponse();
+        if (response != null) {
+            response.setHeader(HttpHeaders.CACHE_CONTROL, NO_CACHE);
+        }
+        return request.checkNotModified(version.getETag(), version.getLastModified());
+    }
+}
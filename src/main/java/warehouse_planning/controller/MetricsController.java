@@ -0,0 +1,56 @@
+package warehouse_planning.controller;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import warehouse_planning.config.PoolMetrics;
+import warehouse_planning.config.SlotMetrics;
+import warehouse_planning.service.SlotCache;
+
+/**
+ * @author agavrikov
+ */
+@RestController
+@RequestMapping("/metrics/")
+public class MetricsController {
+
+    private final PoolMetrics poolMetrics;
+    private final SlotCache slotCache;
+    private final SlotMetrics slotMetrics;
+
+    @GetMapping("")
+    public Map<String, Object> all() {
+        Map<String, Object> metrics = new LinkedHashMap<>();
+        metrics.put("slots", slotMetrics.toMap());
+        metrics.put("pool", poolMetrics.toMap());
+        metrics.put("cache", slotCache.toMap());
+        return metrics;
+    }
+
+    @GetMapping("slots")
+    public Map<String, Object> slots() {
+        return slotMetrics.toMap();
+    }
+
+    @GetMapping("pool")
+    public Map<String, Object> pool() {
+        return poolMetrics.toMap();
+    }
+
+    @GetMapping("cache")
+    public Map<String, Object> cache() {
+        return slotCache.toMap();
+    }
+
+    @Autowired
+    public MetricsController(PoolMetrics poolMetrics, SlotCache slotCache, SlotMetrics slotMetrics) {
+        this.poolMetrics = poolMetrics;
+        this.slotCache = slotCache;
+        this.slotMetrics = slotMetrics;
+    }
+}
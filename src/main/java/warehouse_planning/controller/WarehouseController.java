@@ -1,16 +1,42 @@
 package warehouse_planning.controller;
 
 import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
 import java.time.*;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.stream.Collectors;
 
-import org.apache.poi.openxml4j.exceptions.InvalidFormatException;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DuplicateKeyException;
 import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.ServletWebRequest;
 import org.springframework.web.multipart.MultipartFile;
 import org.springframework.web.servlet.ModelAndView;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import org.springframework.web.servlet.support.ServletUriComponentsBuilder;
 
+import warehouse_planning.algorithm.CapacityPlanning;
+import warehouse_planning.model.ImportMode;
+import warehouse_planning.model.ImportReport;
+import warehouse_planning.model.Occupancy;
+import warehouse_planning.model.PlanningJob;
+import warehouse_planning.model.SlotCursor;
+import warehouse_planning.model.SlotFilter;
+import warehouse_planning.model.SlotPage;
+import warehouse_planning.model.Warehouse;
+import warehouse_planning.service.PlanningJobService;
+import warehouse_planning.service.SlotImportService;
+import warehouse_planning.service.SlotExportService;
+import warehouse_planning.service.SlotIngestService;
 import warehouse_planning.service.SlotService;
 import warehouse_planning.service.WarehouseService;
 
@@ -21,11 +47,24 @@ import warehouse_planning.service.WarehouseService;
 @RequestMapping("/warehouses/")
 public class WarehouseController {
 
+    private static final int MAX_BUCKETS = 100_000;
+    private static final MediaType TEXT_CSV = new MediaType("text", "csv", StandardCharsets.UTF_8);
+    private static final MediaType XLSX =
+            MediaType.parseMediaType("application/vnd.openxmlformats-officedocument.spreadsheetml.sheet");
+
     private final SlotService slotService;
+    private final SlotIngestService ingestService;
+    private final SlotExportService exportService;
+    private final SlotImportService slotImportService;
     private final WarehouseService warehouseService;
+    private final PlanningJobService planningJobService;
+    private final int pageSize;
 
     @GetMapping(value = "", produces = "text/html")
-    public ModelAndView getWarehouses() {
+    public ModelAndView getWarehouses(ServletWebRequest request) {
+        if (ConditionalRequests.isNotModified(request, warehouseService.getWarehousesVersion())) {
+            return null;
+        }
         ModelAndView model = new ModelAndView("warehouse_planning/warehouses");
         model.addObject("warehouses", warehouseService.getWarehouses());
         return model;
@@ -39,14 +78,148 @@ public class WarehouseController {
         @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.TIME) LocalTime timeFrom,
         @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate dateTo,
         @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.TIME) LocalTime timeTo,
-        @RequestParam(required = false, defaultValue = "1") int page) {
-        return slotService.getSlotModelAndView(guid, id, conveyorId, date, dateFrom, timeFrom, dateTo, timeTo, page);
+        @RequestParam(required = false) String after, @RequestParam(required = false) String before,
+        @RequestParam(required = false, defaultValue = "false") boolean last,
+        @RequestParam(required = false, defaultValue = "1") int page,
+        @RequestParam(required = false) Integer count, ServletWebRequest request) {
+        if (ConditionalRequests.isNotModified(request, warehouseService.getVersion(id))) {
+            return null;
+        }
+        SlotFilter filter = new SlotFilter(guid, conveyorId, date, dateFrom, timeFrom, dateTo, timeTo);
+        SlotPage slotPage = slotService.getSlots(id, filter, SlotCursor.decode(after), SlotCursor.decode(before),
+                last, pageSize);
+        if (count == null) {
+            count = slotService.getSlotCount(id, filter);
+        }
+        int maxPage = Math.max((int) Math.ceil(count * 1. / pageSize), 1);
+        if (last) {
+            page = maxPage;
+        } else if (slotPage.getPrev() == null) {
+            page = 1;
+        }
+
+        ModelAndView model = new ModelAndView("warehouse_planning/" + getViewName(filter.getKind()));
+        model.addObject("warehouseId", id);
+        model.addObject("guid", filter.getGuid());
+        model.addObject("conveyorId", conveyorId);
+        model.addObject("date", date);
+        model.addObject("dateFrom", dateFrom);
+        model.addObject("timeFrom", timeFrom);
+        model.addObject("dateTo", dateTo);
+        model.addObject("timeTo", timeTo);
+        model.addObject("slots", slotPage.getSlots());
+        model.addObject("nextCursor", slotPage.getNext() == null ? null : slotPage.getNext().encode());
+        model.addObject("prevCursor", slotPage.getPrev() == null ? null : slotPage.getPrev().encode());
+        model.addObject("page", Math.min(page, maxPage));
+        model.addObject("maxPage", maxPage);
+        model.addObject("count", count);
+        return model;
+    }
+
+    private static String getViewName(SlotFilter.Kind kind) {
+        switch (kind) {
+            case ALL:
+                return "slots";
+            case CONVEYOR:
+                return "conveyor";
+            case DATE:
+                return "date";
+            default:
+                return "search";
+        }
     }
 
+    /**
+     * Starts planning of all warehouses in the background.
+     */
+    @PostMapping(value = "planning")
+    @ResponseStatus(HttpStatus.ACCEPTED)
+    public List<PlanningJob> planningAll() {
+        return planningJobService.submit(warehouseService.getWarehouses().stream()
+                .map(Warehouse::getId)
+                .collect(Collectors.toList()));
+    }
+
+    /**
+     * Same as the POST, for links that plan a warehouse.
+     */
     @GetMapping(value = "{id}/planning")
-    @ResponseStatus(HttpStatus.OK)
-    public void planning(@PathVariable long id) {
-        slotService.planning(id);
+    public ResponseEntity<PlanningJob> planning(@PathVariable long id) {
+        return startPlanning(id);
+    }
+
+    /**
+     * Starts planning of the warehouse in the background, or joins the planning that is running.
+     *
+     * @return the job, its state is polled at the {@code Location} of the response
+     */
+    @PostMapping(value = "{id}/planning")
+    public ResponseEntity<PlanningJob> startPlanning(@PathVariable long id) {
+        return accepted(planningJobService.submit(id));
+    }
+
+    private static ResponseEntity<PlanningJob> accepted(PlanningJob job) {
+        return ResponseEntity.accepted()
+                .location(ServletUriComponentsBuilder.fromCurrentContextPath()
+                        .path("/warehouses/planning/jobs/{jobId}")
+                        .buildAndExpand(job.getId())
+                        .toUri())
+                .body(job);
+    }
+
+    /**
+     * Starts planning of the warehouse on its fixed number of conveyors in the background, see
+     * {@link CapacityPlanning.Mode} for {@code mode}. The job reports the outcome when it is done.
+     */
+    @PostMapping(value = "{id}/planning/capacity")
+    public ResponseEntity<PlanningJob> capacityPlanning(@PathVariable long id,
+            @RequestParam(required = false, defaultValue = "MAX_ACCEPTED") CapacityPlanning.Mode mode) {
+        List<Warehouse> warehouses = warehouseService.getWarehouse(id);
+        if (warehouses.isEmpty()) {
+            return ResponseEntity.notFound().build();
+        }
+        Integer conveyorCapacity = warehouses.get(0).getConveyorCapacity();
+        if (conveyorCapacity == null) {
+            return ResponseEntity.badRequest().build();
+        }
+        return accepted(planningJobService.submit(id, conveyorCapacity, mode));
+    }
+
+    /**
+     * Sets the number of physical conveyors, no {@code capacity} removes the limit.
+     */
+    @PostMapping(value = "{id}/capacity")
+    public ResponseEntity<Void> setConveyorCapacity(@PathVariable long id,
+            @RequestParam(required = false) Integer capacity) {
+        if (capacity != null && capacity <= 0) {
+            return ResponseEntity.badRequest().build();
+        }
+        warehouseService.setConveyorCapacity(id, capacity);
+        return ResponseEntity.ok().build();
+    }
+
+    /**
+     * Maximal number of concurrent slots per bucket of {@code bucket} minutes from {@code from} to {@code to}.
+     */
+    @GetMapping(value = "{id}/occupancy")
+    public ResponseEntity<Occupancy> getOccupancy(@PathVariable long id,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to,
+            @RequestParam(required = false, defaultValue = "15") int bucket, ServletWebRequest request) {
+        long minutes = Duration.between(from, to).toMinutes();
+        if (bucket <= 0 || minutes <= 0 || (minutes + bucket - 1) / bucket > MAX_BUCKETS) {
+            return ResponseEntity.badRequest().build();
+        }
+        if (ConditionalRequests.isNotModified(request, warehouseService.getVersion(id))) {
+            return null;
+        }
+        return ResponseEntity.ok(slotService.getOccupancy(id, from, bucket, (int) ((minutes + bucket - 1) / bucket)));
+    }
+
+    @GetMapping(value = "planning/jobs/{jobId}")
+    public ResponseEntity<PlanningJob> getPlanningJob(@PathVariable String jobId) {
+        PlanningJob job = planningJobService.getJob(jobId);
+        return job == null ? ResponseEntity.notFound().build() : ResponseEntity.ok(job);
     }
 
     @GetMapping(value = "{id}/clear")
@@ -66,17 +239,61 @@ public class WarehouseController {
             @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate date,
             @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.TIME) LocalTime timeFrom,
             @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.TIME) LocalTime timeTo) {
-        slotService.save(guid, id, date, timeFrom, timeTo);
+        ingestService.save(guid, id, date, timeFrom, timeTo);
         return new ModelAndView("redirect:/warehouses/" + id + "/slots");
     }
 
+    /**
+     * Appends the slots of the CSV; {@code mode=UPSERT} matches them on the slot number instead.
+     */
+    @PostMapping(value = "{id}/slots/bulk", consumes = "text/csv")
+    @ResponseStatus(HttpStatus.OK)
+    public void bulk(@PathVariable long id, InputStream csv,
+                     @RequestParam(required = false, defaultValue = "APPEND") ImportMode mode) throws IOException {
+        ingestService.bulk(id, csv, mode);
+    }
+
+    /**
+     * Appends the slots of the uploaded workbooks; {@code mode=UPSERT} matches them on the slot number instead.
+     */
     @PostMapping(value = "{id}/download")
-    public ModelAndView download(@PathVariable long id, @RequestParam MultipartFile file)
-            throws IOException, InvalidFormatException {
-        slotService.download(id, file);
+    public ModelAndView download(@PathVariable long id, @RequestParam("file") MultipartFile[] files,
+                                 @RequestParam(required = false, defaultValue = "APPEND") ImportMode mode)
+            throws IOException {
+        slotImportService.importSheets(id, Arrays.asList(files), mode);
         return new ModelAndView("redirect:/warehouses/" + id + "/slots");
     }
 
+    /**
+     * Imports all sheets of the uploaded workbooks and reports the changed and rejected rows. Rows are appended
+     * unless {@code mode=UPSERT} is given; a repeated upsert of the same workbooks changes nothing.
+     */
+    @PostMapping(value = "{id}/import")
+    public ImportReport importSheets(@PathVariable long id, @RequestParam("file") MultipartFile[] files,
+                                     @RequestParam(required = false, defaultValue = "APPEND") ImportMode mode)
+            throws IOException {
+        return slotImportService.importSheets(id, Arrays.asList(files), mode);
+    }
+
+    /**
+     * Planned slots of the warehouse, ordered by conveyor and start, in the columns of the import.
+     */
+    @GetMapping(value = "{id}/export/csv")
+    public ResponseEntity<StreamingResponseBody> exportCsv(@PathVariable long id) {
+        return ResponseEntity.ok()
+                .contentType(TEXT_CSV)
+                .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"slots-" + id + ".csv\"")
+                .body(out -> exportService.exportCsv(id, out));
+    }
+
+    @GetMapping(value = "{id}/export/xlsx")
+    public ResponseEntity<StreamingResponseBody> exportSheet(@PathVariable long id) {
+        return ResponseEntity.ok()
+                .contentType(XLSX)
+                .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"slots-" + id + ".xlsx\"")
+                .body(out -> exportService.exportSheet(id, out));
+    }
+
     @DeleteMapping(value = "{id}")
     @ResponseStatus(HttpStatus.OK)
     public void deleteWarehouse(@PathVariable long id) {
@@ -92,12 +309,36 @@ public class WarehouseController {
     @DeleteMapping(value = "/{id}/slots/{slotId}")
     @ResponseStatus(HttpStatus.OK)
     public void delete(@PathVariable long id, @PathVariable long slotId) {
-        slotService.delete(slotId);
+        slotService.delete(id, slotId);
+    }
+
+    /**
+     * A slot number that the warehouse already has, added on its own.
+     */
+    @ExceptionHandler(DuplicateKeyException.class)
+    @ResponseStatus(HttpStatus.CONFLICT)
+    public void duplicateSlot() {
+    }
+
+    /**
+     * The parse pool of the imports is full.
+     */
+    @ExceptionHandler(RejectedExecutionException.class)
+    @ResponseStatus(HttpStatus.SERVICE_UNAVAILABLE)
+    public void importsBusy() {
     }
 
     @Autowired
-    public WarehouseController(SlotService slotService, WarehouseService warehouseService) {
+    public WarehouseController(SlotService slotService, SlotIngestService ingestService,
+                               SlotExportService exportService, SlotImportService slotImportService,
+                               WarehouseService warehouseService, PlanningJobService planningJobService,
+                               @Value("${slots.pageSize:10}") int pageSize) {
         this.slotService = slotService;
+        this.ingestService = ingestService;
+        this.exportService = exportService;
+        this.slotImportService = slotImportService;
         this.warehouseService = warehouseService;
+        this.planningJobService = planningJobService;
+        this.pageSize = pageSize;
     }
 }
@@ -0,0 +1,55 @@
+package warehouse_planning.mapper;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+
+import org.springframework.jdbc.core.RowMapper;
+
+import warehouse_planning.model.Slot;
+
+/**
+ * {@link SlotMapper} that looks the columns up once per result set and reads them by position, dates and times
+ * straight as {@code java.time} values. A NULL conveyor is a free slot.
+ *
+ * @author agavrikov
+ */
+public class IndexedSlotMapper implements RowMapper<Slot> {
+
+    private ResultSet resultSet;
+    private int id;
+    private int guid;
+    private int warehouseId;
+    private int date;
+    private int timeFrom;
+    private int timeTo;
+    private int conveyorId;
+    private int creationTime;
+
+    @Override
+    public Slot mapRow(ResultSet rs, int rowNum) throws SQLException {
+        if (rs != resultSet) {
+            findColumns(rs);
+        }
+        int conveyor = rs.getInt(conveyorId);
+        Integer conveyorOrNull = rs.wasNull() ? null : conveyor;
+        return new Slot(rs.getLong(id), rs.getString(guid), rs.getLong(warehouseId),
+            rs.getObject(date, LocalDate.class), rs.getObject(timeFrom, LocalTime.class),
+            rs.getObject(timeTo, LocalTime.class), conveyorOrNull,
+            rs.getObject(creationTime, LocalDateTime.class));
+    }
+
+    private void findColumns(ResultSet rs) throws SQLException {
+        id = rs.findColumn("id");
+        guid = rs.findColumn("guid");
+        warehouseId = rs.findColumn("warehouse_id");
+        date = rs.findColumn("date");
+        timeFrom = rs.findColumn("time_from");
+        timeTo = rs.findColumn("time_to");
+        conveyorId = rs.findColumn("conveyor_id");
+        creationTime = rs.findColumn("creation_time");
+        resultSet = rs;
+    }
+}
@@ -16,6 +16,11 @@ public final class ResultSetWrapper {
         this.rs = rs;
     }
 
+    Integer getInteger(String columnName) throws SQLException {
+        int value = rs.getInt(columnName);
+        return rs.wasNull() ? null : value;
+    }
+
     LocalDateTime getLocalDateTime(String columnName) throws SQLException {
         Timestamp value = rs.getTimestamp(columnName);
         return rs.wasNull() ? null : value.toLocalDateTime();
@@ -0,0 +1,56 @@
+package warehouse_planning.mapper;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+
+import org.springframework.jdbc.core.RowCallbackHandler;
+
+import warehouse_planning.algorithm.SlotBuffer;
+
+/**
+ * Appends rows of {@code id, starts_at, ends_at, conveyor_id} to a {@link SlotBuffer} without creating slots.
+ * Columns are looked up once per result set, the stored timestamps are turned into minutes since the epoch here
+ * rather than in SQL. A NULL conveyor is the free conveyor 0.
+ *
+ * @author agavrikov
+ */
+public class SlotBufferMapper implements RowCallbackHandler {
+
+    private final SlotBuffer buffer;
+
+    private ResultSet resultSet;
+    private int id;
+    private int startsAt;
+    private int endsAt;
+    private int conveyorId;
+
+    public SlotBufferMapper(SlotBuffer buffer) {
+        this.buffer = buffer;
+    }
+
+    @Override
+    public void processRow(ResultSet rs) throws SQLException {
+        if (rs != resultSet) {
+            findColumns(rs);
+        }
+        buffer.add(rs.getLong(id), toMinute(rs.getObject(startsAt, LocalDateTime.class)),
+                toMinute(rs.getObject(endsAt, LocalDateTime.class)), rs.getInt(conveyorId));
+    }
+
+    private void findColumns(ResultSet rs) throws SQLException {
+        id = rs.findColumn("id");
+        startsAt = rs.findColumn("starts_at");
+        endsAt = rs.findColumn("ends_at");
+        conveyorId = rs.findColumn("conveyor_id");
+        resultSet = rs;
+    }
+
+    /**
+     * Minutes since the epoch of a stored timestamp, the one conversion of {@code starts_at} and {@code ends_at}.
+     */
+    public static long toMinute(LocalDateTime time) {
+        return Math.floorDiv(time.toEpochSecond(ZoneOffset.UTC), 60);
+    }
+}
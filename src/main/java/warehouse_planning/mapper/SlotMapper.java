@@ -17,7 +17,7 @@ public class SlotMapper implements RowMapper<Slot> {
 
         return new Slot(rs.getLong("id"), rs.getString("guid"), rs.getLong("warehouse_id"),
             rsWrapper.getLocalDate("date"), rsWrapper.getLocalTime("time_from"),
-            rsWrapper.getLocalTime("time_to"), rs.getInt("conveyor_id"),
+            rsWrapper.getLocalTime("time_to"), rsWrapper.getInteger("conveyor_id"),
             rsWrapper.getLocalDateTime("creation_time"));
     }
 }
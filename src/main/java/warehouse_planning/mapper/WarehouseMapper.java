@@ -17,7 +17,8 @@ public class WarehouseMapper implements RowMapper<Warehouse> {
         ResultSetWrapper rsWrapper = new ResultSetWrapper(rs);
         return new Warehouse(rs.getLong("id"),
             rsWrapper.getLocalDateTime("creation_time"),
-            rs.getString("name")
+            rs.getString("name"),
+            rsWrapper.getInteger("conveyor_capacity")
         );
     }
 }
@@ -0,0 +1,82 @@
+package warehouse_planning.model;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Outcome of planning a warehouse on its fixed number of conveyors.
+ *
+ * @author agavrikov
+ */
+public class CapacityReport {
+
+    private final long warehouseId;
+    private final int conveyorCapacity;
+    private final String mode;
+    private final int slotCount;
+    private final int conveyorCount;
+    private final long[] rejectedIds;
+    private final int peakOverlap;
+    private final List<LocalDateTime> peakTimes;
+
+    public CapacityReport(long warehouseId, int conveyorCapacity, String mode, int slotCount, int conveyorCount,
+                          long[] rejectedIds, int peakOverlap, List<LocalDateTime> peakTimes) {
+        this.warehouseId = warehouseId;
+        this.conveyorCapacity = conveyorCapacity;
+        this.mode = mode;
+        this.slotCount = slotCount;
+        this.conveyorCount = conveyorCount;
+        this.rejectedIds = rejectedIds;
+        this.peakOverlap = peakOverlap;
+        this.peakTimes = peakTimes;
+    }
+
+    public long getWarehouseId() {
+        return warehouseId;
+    }
+
+    public int getConveyorCapacity() {
+        return conveyorCapacity;
+    }
+
+    public String getMode() {
+        return mode;
+    }
+
+    public int getSlotCount() {
+        return slotCount;
+    }
+
+    public int getAcceptedCount() {
+        return slotCount - rejectedIds.length;
+    }
+
+    public int getRejectedCount() {
+        return rejectedIds.length;
+    }
+
+    public int getConveyorCount() {
+        return conveyorCount;
+    }
+
+    /**
+     * @return ids of the slots left without a conveyor, in start order
+     */
+    public long[] getRejectedIds() {
+        return rejectedIds;
+    }
+
+    /**
+     * @return maximal number of slots requested at once, including the rejected ones
+     */
+    public int getPeakOverlap() {
+        return peakOverlap;
+    }
+
+    /**
+     * @return times at which the peak overlap starts
+     */
+    public List<LocalDateTime> getPeakTimes() {
+        return peakTimes;
+    }
+}
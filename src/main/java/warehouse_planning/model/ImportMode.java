@@ -0,0 +1,16 @@
+package warehouse_planning.model;
+
+/**
+ * How imported slots are written into a warehouse.
+ *
+ * @author agavrikov
+ */
+public enum ImportMode {
+    /** every row is a new slot, a slot number the warehouse already has fails the import: for new warehouses */
+    APPEND,
+    /**
+     * rows are matched on the slot number: new slots are inserted, slots with other times are updated and planned
+     * again, unchanged slots are not written
+     */
+    UPSERT
+}
@@ -0,0 +1,94 @@
+package warehouse_planning.model;
+
+import java.util.List;
+
+/**
+ * Outcome of importing workbooks into a warehouse.
+ *
+ * @author agavrikov
+ */
+public class ImportReport {
+
+    private final long warehouseId;
+    private final ImportMode mode;
+    private final int fileCount;
+    private final int sheetCount;
+    private final long rowCount;
+    private final long changedCount;
+    private final long duplicateCount;
+    private final long rejectedCount;
+    private final List<RejectedRow> rejectedRows;
+    private final long millis;
+
+    public ImportReport(long warehouseId, ImportMode mode, int fileCount, int sheetCount, long rowCount,
+                        long changedCount, long duplicateCount, long rejectedCount, List<RejectedRow> rejectedRows,
+                        long millis) {
+        this.warehouseId = warehouseId;
+        this.mode = mode;
+        this.fileCount = fileCount;
+        this.sheetCount = sheetCount;
+        this.rowCount = rowCount;
+        this.changedCount = changedCount;
+        this.duplicateCount = duplicateCount;
+        this.rejectedCount = rejectedCount;
+        this.rejectedRows = rejectedRows;
+        this.millis = millis;
+    }
+
+    public long getWarehouseId() {
+        return warehouseId;
+    }
+
+    public ImportMode getMode() {
+        return mode;
+    }
+
+    public int getFileCount() {
+        return fileCount;
+    }
+
+    public int getSheetCount() {
+        return sheetCount;
+    }
+
+    /**
+     * @return number of imported slots
+     */
+    public long getRowCount() {
+        return rowCount;
+    }
+
+    /**
+     * @return number of inserted and updated slots, on upsert the imported slots that were already there with the
+     * same times are not counted
+     */
+    public long getChangedCount() {
+        return changedCount;
+    }
+
+    /**
+     * @return number of rows skipped on upsert because their slot number was already imported
+     */
+    public long getDuplicateCount() {
+        return duplicateCount;
+    }
+
+    public long getRejectedCount() {
+        return rejectedCount;
+    }
+
+    /**
+     * @return the first rejected rows, at most a fixed number of them
+     */
+    public List<RejectedRow> getRejectedRows() {
+        return rejectedRows;
+    }
+
+    public long getMillis() {
+        return millis;
+    }
+
+    public long getRowsPerSecond() {
+        return millis == 0 ? rowCount * 1000 : rowCount * 1000 / millis;
+    }
+}
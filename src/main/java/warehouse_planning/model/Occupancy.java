@@ -0,0 +1,63 @@
+package warehouse_planning.model;
+
+import java.time.LocalDateTime;
+
+/**
+ * Number of concurrent slots of a warehouse in consecutive time buckets.
+ *
+ * @author agavrikov
+ */
+public class Occupancy {
+
+    private final long warehouseId;
+    private final LocalDateTime from;
+    private final int bucketMinutes;
+    private final int[] buckets;
+    private final int maxOverlap;
+    private final LocalDateTime maxOverlapBucket;
+
+    public Occupancy(long warehouseId, LocalDateTime from, int bucketMinutes, int[] buckets) {
+        this.warehouseId = warehouseId;
+        this.from = from;
+        this.bucketMinutes = bucketMinutes;
+        this.buckets = buckets;
+        int max = 0;
+        for (int i = 1; i < buckets.length; ++i) {
+            if (buckets[i] > buckets[max]) {
+                max = i;
+            }
+        }
+        this.maxOverlap = buckets.length == 0 ? 0 : buckets[max];
+        this.maxOverlapBucket = from.plusMinutes((long) max * bucketMinutes);
+    }
+
+    public long getWarehouseId() {
+        return warehouseId;
+    }
+
+    public LocalDateTime getFrom() {
+        return from;
+    }
+
+    public int getBucketMinutes() {
+        return bucketMinutes;
+    }
+
+    /**
+     * @return maximal number of concurrent slots in each bucket, the first one starts at {@link #getFrom()}
+     */
+    public int[] getBuckets() {
+        return buckets;
+    }
+
+    public int getMaxOverlap() {
+        return maxOverlap;
+    }
+
+    /**
+     * @return start of the first bucket with the maximal overlap
+     */
+    public LocalDateTime getMaxOverlapBucket() {
+        return maxOverlapBucket;
+    }
+}
@@ -0,0 +1,169 @@
+package warehouse_planning.model;
+
+import java.time.LocalDateTime;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Planning of one warehouse running in the background, with its progress and phase timings. A planning on a fixed
+ * number of conveyors has the capacity and the mode it was requested with and reports its outcome when done.
+ *
+ * @author agavrikov
+ */
+public class PlanningJob {
+
+    public enum Status {
+        QUEUED,
+        RUNNING,
+        DONE,
+        FAILED
+    }
+
+    private final String id = UUID.randomUUID().toString();
+    private final long warehouseId;
+    private final Integer conveyorCapacity;
+    private final String mode;
+    private final LocalDateTime creationTime = LocalDateTime.now();
+    private final Map<String, Long> phaseMillis = new ConcurrentHashMap<>();
+    private final CompletableFuture<PlanningJob> done = new CompletableFuture<>();
+
+    private volatile Status status = Status.QUEUED;
+    private volatile int slotCount;
+    private volatile int plannedCount;
+    private volatile int changedCount;
+    private volatile int conveyorCount;
+    private volatile int attemptCount;
+    private volatile String error;
+    private volatile LocalDateTime finishTime;
+    private volatile CapacityReport capacityReport;
+
+    public PlanningJob(long warehouseId) {
+        this(warehouseId, null, null);
+    }
+
+    public PlanningJob(long warehouseId, Integer conveyorCapacity, String mode) {
+        this.warehouseId = warehouseId;
+        this.conveyorCapacity = conveyorCapacity;
+        this.mode = mode;
+    }
+
+    public void start() {
+        status = Status.RUNNING;
+    }
+
+    public void finish() {
+        status = Status.DONE;
+        finishTime = LocalDateTime.now();
+        done.complete(this);
+    }
+
+    public void fail(Throwable e) {
+        status = Status.FAILED;
+        error = e.toString();
+        finishTime = LocalDateTime.now();
+        done.complete(this);
+    }
+
+    public boolean isFinished() {
+        return done.isDone();
+    }
+
+    public void phase(String phase, long startNanos) {
+        phaseMillis.put(phase, (System.nanoTime() - startNanos) / 1_000_000);
+    }
+
+    public String getId() {
+        return id;
+    }
+
+    public long getWarehouseId() {
+        return warehouseId;
+    }
+
+    /**
+     * @return number of conveyors of a capacity planning, {@code null} for a planning on as many as needed
+     */
+    public Integer getConveyorCapacity() {
+        return conveyorCapacity;
+    }
+
+    public String getMode() {
+        return mode;
+    }
+
+    public Status getStatus() {
+        return status;
+    }
+
+    public LocalDateTime getCreationTime() {
+        return creationTime;
+    }
+
+    public LocalDateTime getFinishTime() {
+        return finishTime;
+    }
+
+    public Map<String, Long> getPhaseMillis() {
+        return phaseMillis;
+    }
+
+    public int getSlotCount() {
+        return slotCount;
+    }
+
+    public void setSlotCount(int slotCount) {
+        this.slotCount = slotCount;
+    }
+
+    public int getPlannedCount() {
+        return plannedCount;
+    }
+
+    public void setPlannedCount(int plannedCount) {
+        this.plannedCount = plannedCount;
+    }
+
+    public int getChangedCount() {
+        return changedCount;
+    }
+
+    public void setChangedCount(int changedCount) {
+        this.changedCount = changedCount;
+    }
+
+    public int getConveyorCount() {
+        return conveyorCount;
+    }
+
+    public void setConveyorCount(int conveyorCount) {
+        this.conveyorCount = conveyorCount;
+    }
+
+    /**
+     * @return number of plannings made, more than one if the slots changed during one
+     */
+    public int getAttemptCount() {
+        return attemptCount;
+    }
+
+    public void setAttemptCount(int attemptCount) {
+        this.attemptCount = attemptCount;
+    }
+
+    public String getError() {
+        return error;
+    }
+
+    /**
+     * @return outcome of a capacity planning once it is done
+     */
+    public CapacityReport getCapacityReport() {
+        return capacityReport;
+    }
+
+    public void setCapacityReport(CapacityReport capacityReport) {
+        this.capacityReport = capacityReport;
+    }
+}
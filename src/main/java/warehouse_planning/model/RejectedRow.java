@@ -0,0 +1,41 @@
+package warehouse_planning.model;
+
+/**
+ * Row of an imported sheet that did not become a slot, row 0 stands for a whole file or sheet that could not be
+ * read.
+ *
+ * @author agavrikov
+ */
+public class RejectedRow {
+
+    private final String file;
+    private final String sheet;
+    private final int row;
+    private final String reason;
+
+    public RejectedRow(String file, String sheet, int row, String reason) {
+        this.file = file;
+        this.sheet = sheet;
+        this.row = row;
+        this.reason = reason;
+    }
+
+    public String getFile() {
+        return file;
+    }
+
+    public String getSheet() {
+        return sheet;
+    }
+
+    /**
+     * @return 1-based row number as shown by spreadsheet programs
+     */
+    public int getRow() {
+        return row;
+    }
+
+    public String getReason() {
+        return reason;
+    }
+}
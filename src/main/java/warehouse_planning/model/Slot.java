@@ -4,11 +4,15 @@ import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.time.LocalTime;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
+
 /**
  * @author agavrikov
  */
 public class Slot implements Comparable<Slot> {
 
+    private static final long MINUTES_PER_DAY = 24 * 60;
+
     private final long id;
     private final String guid;
     private final long warehouseId;
@@ -35,28 +39,38 @@ public class Slot implements Comparable<Slot> {
     }
 
     public boolean isBeforeTimeTo(Slot slot) {
-        return getLocalDateTimeTo().isBefore(slot.getLocalDateTimeTo());
+        return getMinuteTo() < slot.getMinuteTo();
     }
 
     public boolean after(Slot slot) {
-        return getLocalDateTimeFrom().isEqual(slot.getLocalDateTimeTo()) ||
-                getLocalDateTimeFrom().isAfter(slot.getLocalDateTimeTo());
+        return getMinuteFrom() >= slot.getMinuteTo();
     }
 
-    private LocalDateTime getLocalDateTimeFrom() {
-        return LocalDateTime.of(date, timeFrom);
+    /**
+     * @return start of the slot in minutes since the epoch
+     */
+    @JsonIgnore
+    public long getMinuteFrom() {
+        return date.toEpochDay() * MINUTES_PER_DAY + timeFrom.toSecondOfDay() / 60;
     }
 
-    private LocalDateTime getLocalDateTimeTo() {
-        return timeFrom.isAfter(timeTo) ? LocalDateTime.of(date.plusDays(1), timeTo) : LocalDateTime.of(date, timeTo);
+    /**
+     * @return end of the slot in minutes since the epoch, slots ending before they start finish the next day
+     */
+    @JsonIgnore
+    public long getMinuteTo() {
+        long minuteTo = date.toEpochDay() * MINUTES_PER_DAY + timeTo.toSecondOfDay() / 60;
+        return timeFrom.isAfter(timeTo) ? minuteTo + MINUTES_PER_DAY : minuteTo;
     }
 
     @Override
     public int compareTo(Slot slot) {
-        if (getLocalDateTimeFrom().isEqual(slot.getLocalDateTimeFrom())) {
-            return getLocalDateTimeTo().compareTo(slot.getLocalDateTimeTo());
+        long minuteFrom = getMinuteFrom();
+        long slotMinuteFrom = slot.getMinuteFrom();
+        if (minuteFrom == slotMinuteFrom) {
+            return Long.compare(getMinuteTo(), slot.getMinuteTo());
         }
-        return getLocalDateTimeFrom().compareTo(slot.getLocalDateTimeFrom());
+        return Long.compare(minuteFrom, slotMinuteFrom);
     }
 
     @Override
@@ -0,0 +1,94 @@
+package warehouse_planning.model;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.time.format.DateTimeParseException;
+import java.util.Base64;
+
+import com.fasterxml.jackson.annotation.JsonValue;
+
+/**
+ * Position of a slot in the listing order {@code (conveyor_id, starts_at, ends_at, id)}, free slots go last.
+ * Encoded as an opaque URL-safe string for next/previous page links.
+ *
+ * @author agavrikov
+ */
+public class SlotCursor {
+
+    private final Integer conveyorId;
+    private final LocalDate date;
+    private final LocalTime timeFrom;
+    private final LocalTime timeTo;
+    private final long id;
+
+    public SlotCursor(Integer conveyorId, LocalDate date, LocalTime timeFrom, LocalTime timeTo, long id) {
+        this.conveyorId = conveyorId;
+        this.date = date;
+        this.timeFrom = timeFrom;
+        this.timeTo = timeTo;
+        this.id = id;
+    }
+
+    public static SlotCursor of(Slot slot) {
+        return new SlotCursor(slot.getConveyorId(), slot.getDate(), slot.getTimeFrom(), slot.getTimeTo(),
+                slot.getId());
+    }
+
+    /**
+     * @return cursor or {@code null} if the value is empty or malformed
+     */
+    public static SlotCursor decode(String value) {
+        if (value == null || value.isEmpty()) {
+            return null;
+        }
+        try {
+            String[] parts = new String(Base64.getUrlDecoder().decode(value), StandardCharsets.UTF_8).split("\\|", -1);
+            if (parts.length != 5) {
+                return null;
+            }
+            return new SlotCursor(parts[0].isEmpty() ? null : Integer.valueOf(parts[0]), LocalDate.parse(parts[1]),
+                    LocalTime.parse(parts[2]), LocalTime.parse(parts[3]), Long.parseLong(parts[4]));
+        } catch (IllegalArgumentException | DateTimeParseException e) {
+            return null;
+        }
+    }
+
+    @JsonValue
+    public String encode() {
+        String value = (conveyorId == null ? "" : conveyorId) + "|" + date + "|" + timeFrom + "|" + timeTo + "|" + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(value.getBytes(StandardCharsets.UTF_8));
+    }
+
+    public Integer getConveyorId() {
+        return conveyorId;
+    }
+
+    public LocalDate getDate() {
+        return date;
+    }
+
+    public LocalTime getTimeFrom() {
+        return timeFrom;
+    }
+
+    public LocalTime getTimeTo() {
+        return timeTo;
+    }
+
+    public LocalDateTime getStartsAt() {
+        return LocalDateTime.of(date, timeFrom);
+    }
+
+    /**
+     * @return end of the slot, slots ending before they start finish the next day
+     */
+    public LocalDateTime getEndsAt() {
+        return LocalDateTime.of(timeFrom.isAfter(timeTo) ? date.plusDays(1) : date, timeTo);
+    }
+
+    public long getId() {
+        return id;
+    }
+}
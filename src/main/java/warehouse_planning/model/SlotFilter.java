@@ -0,0 +1,118 @@
+package warehouse_planning.model;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+
+import org.springframework.util.StringUtils;
+
+/**
+ * Slot search parameters as given by the user and the time range they select: a single {@code date} is the whole
+ * day, {@code dateFrom}/{@code dateTo} are bounds of a search with optional times.
+ *
+ * @author agavrikov
+ */
+public class SlotFilter {
+
+    public enum Kind {
+        /** no filter */
+        ALL,
+        /** only a conveyor */
+        CONVEYOR,
+        /** only a date */
+        DATE,
+        /** any other combination */
+        SEARCH
+    }
+
+    private final String guid;
+    private final Integer conveyorId;
+    private final LocalDate date;
+    private final LocalDate dateFrom;
+    private final LocalTime timeFrom;
+    private final LocalDate dateTo;
+    private final LocalTime timeTo;
+
+    private final Kind kind;
+    private final LocalDateTime from;
+    private final LocalDateTime to;
+
+    public SlotFilter(String guid, Integer conveyorId, LocalDate date, LocalDate dateFrom, LocalTime timeFrom,
+                      LocalDate dateTo, LocalTime timeTo) {
+        this.guid = StringUtils.isEmpty(guid) ? null : guid;
+        this.conveyorId = conveyorId;
+        this.date = date;
+        this.dateFrom = dateFrom;
+        this.timeFrom = timeFrom;
+        this.dateTo = dateTo;
+        this.timeTo = timeTo;
+
+        LocalTime midnight = LocalTime.of(0, 0);
+        boolean noSearch = this.guid == null && dateFrom == null && timeFrom == null && dateTo == null &&
+                timeTo == null;
+        if (noSearch && conveyorId == null && date == null) {
+            kind = Kind.ALL;
+            from = null;
+            to = null;
+        } else if (noSearch && date == null) {
+            kind = Kind.CONVEYOR;
+            from = null;
+            to = null;
+        } else if (noSearch && conveyorId == null) {
+            kind = Kind.DATE;
+            from = LocalDateTime.of(date, midnight);
+            to = LocalDateTime.of(date.plusDays(1), midnight);
+        } else {
+            kind = Kind.SEARCH;
+            from = dateFrom == null ? null : LocalDateTime.of(dateFrom, timeFrom != null ? timeFrom : midnight);
+            to = dateTo == null ? null
+                    : timeTo != null ? LocalDateTime.of(dateTo, timeTo) : LocalDateTime.of(dateTo.plusDays(1), midnight);
+        }
+    }
+
+    public String getGuid() {
+        return guid;
+    }
+
+    public Integer getConveyorId() {
+        return conveyorId;
+    }
+
+    public LocalDate getDate() {
+        return date;
+    }
+
+    public LocalDate getDateFrom() {
+        return dateFrom;
+    }
+
+    public LocalTime getTimeFrom() {
+        return timeFrom;
+    }
+
+    public LocalDate getDateTo() {
+        return dateTo;
+    }
+
+    public LocalTime getTimeTo() {
+        return timeTo;
+    }
+
+    public Kind getKind() {
+        return kind;
+    }
+
+    /**
+     * @return earliest slot start, {@code null} if not bounded
+     */
+    public LocalDateTime getFrom() {
+        return from;
+    }
+
+    /**
+     * @return latest slot end, {@code null} if not bounded
+     */
+    public LocalDateTime getTo() {
+        return to;
+    }
+}
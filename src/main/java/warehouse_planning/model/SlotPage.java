@@ -0,0 +1,33 @@
+package warehouse_planning.model;
+
+import java.util.List;
+
+/**
+ * One page of the slot listing with cursors of the neighbouring pages, a cursor is {@code null} if there is no page.
+ *
+ * @author agavrikov
+ */
+public class SlotPage {
+
+    private final List<Slot> slots;
+    private final SlotCursor next;
+    private final SlotCursor prev;
+
+    public SlotPage(List<Slot> slots, SlotCursor next, SlotCursor prev) {
+        this.slots = slots;
+        this.next = next;
+        this.prev = prev;
+    }
+
+    public List<Slot> getSlots() {
+        return slots;
+    }
+
+    public SlotCursor getNext() {
+        return next;
+    }
+
+    public SlotCursor getPrev() {
+        return prev;
+    }
+}
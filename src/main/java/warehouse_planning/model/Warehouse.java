@@ -10,11 +10,13 @@ public class Warehouse {
     private final long id;
     private final LocalDateTime creationTime;
     private String name;
+    private Integer conveyorCapacity;
 
-    public Warehouse(long id, LocalDateTime creationTime, String name) {
+    public Warehouse(long id, LocalDateTime creationTime, String name, Integer conveyorCapacity) {
         this.id = id;
         this.creationTime = creationTime;
         this.name = name;
+        this.conveyorCapacity = conveyorCapacity;
     }
 
     public long getId() {
@@ -32,4 +34,15 @@ public class Warehouse {
     public void setName(String name) {
         this.name = name;
     }
+
+    /**
+     * @return number of physical conveyors, {@code null} if not limited
+     */
+    public Integer getConveyorCapacity() {
+        return conveyorCapacity;
+    }
+
+    public void setConveyorCapacity(Integer conveyorCapacity) {
+        this.conveyorCapacity = conveyorCapacity;
+    }
 }
@@ -0,0 +1,37 @@
+package warehouse_planning.model;
+
+/**
+ * Stored version of a warehouse or of the warehouse list, the validators of conditional GETs.
+ *
+ * @author agavrikov
+ */
+public class WarehouseVersion {
+
+    private final long version;
+    private final String eTag;
+    private final long lastModified;
+
+    /**
+     * @param lastModified time of the last change in milliseconds, -1 if unknown
+     */
+    public WarehouseVersion(long version, String eTag, long lastModified) {
+        this.version = version;
+        this.eTag = eTag;
+        this.lastModified = lastModified;
+    }
+
+    public long getVersion() {
+        return version;
+    }
+
+    /**
+     * @return strong entity tag
+     */
+    public String getETag() {
+        return eTag;
+    }
+
+    public long getLastModified() {
+        return lastModified;
+    }
+}
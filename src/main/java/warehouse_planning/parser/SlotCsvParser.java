@@ -0,0 +1,87 @@
+package warehouse_planning.parser;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+
+import warehouse_planning.model.Slot;
+
+/**
+ * Streaming reader of slots in CSV: {@code guid,date,time_from,time_to} per line with ISO dates and times,
+ * the guid may be double-quoted. Slots are handed to the consumer in chunks of a fixed size.
+ * <p>
+ * Lines that can not be parsed, e.g. a header, and lines with time from not before time to are skipped.
+ *
+ * @author agavrikov
+ */
+public class SlotCsvParser {
+
+    public static void parse(InputStream inputStream, long warehouseId, int chunkSize,
+                             Consumer<List<Slot>> consumer) throws IOException {
+        BufferedReader reader = new BufferedReader(new InputStreamReader(inputStream, StandardCharsets.UTF_8));
+        List<Slot> chunk = new ArrayList<>(chunkSize);
+        String line;
+        while ((line = reader.readLine()) != null) {
+            Slot slot = toSlot(line, warehouseId);
+            if (slot == null) {
+                continue;
+            }
+            chunk.add(slot);
+            if (chunk.size() == chunkSize) {
+                consumer.accept(chunk);
+                chunk = new ArrayList<>(chunkSize);
+            }
+        }
+        if (!chunk.isEmpty()) {
+            consumer.accept(chunk);
+        }
+    }
+
+    private static Slot toSlot(String line, long warehouseId) {
+        int guidEnd;
+        String guid;
+        if (line.startsWith("\"")) {
+            guidEnd = line.indexOf("\",", 1);
+            if (guidEnd < 0) {
+                return null;
+            }
+            guid = line.substring(1, guidEnd).replace("\"\"", "\"");
+            ++guidEnd;
+        } else {
+            guidEnd = line.indexOf(',');
+            if (guidEnd < 0) {
+                return null;
+            }
+            guid = line.substring(0, guidEnd);
+        }
+
+        String[] values = line.substring(guidEnd + 1).split(",", -1);
+        if (guid.isEmpty() || values.length < 3) {
+            return null;
+        }
+        LocalDate date;
+        LocalTime timeFrom;
+        LocalTime timeTo;
+        try {
+            date = LocalDate.parse(values[0].trim());
+            timeFrom = LocalTime.parse(values[1].trim());
+            timeTo = LocalTime.parse(values[2].trim());
+        } catch (DateTimeParseException e) {
+            return null;
+        }
+
+        if (timeFrom.isAfter(timeTo) || timeFrom.equals(timeTo)) {
+            return null;
+        }
+        return new Slot(0, guid, warehouseId, date, timeFrom, timeTo, null, LocalDateTime.now());
+    }
+}
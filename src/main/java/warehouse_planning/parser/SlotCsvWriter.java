@@ -0,0 +1,57 @@
+package warehouse_planning.parser;
+
+import java.io.BufferedWriter;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+
+import warehouse_planning.model.Slot;
+
+/**
+ * Streaming writer of slots in the CSV format of {@link SlotCsvParser} with the conveyor as an extra column, empty
+ * for free slots. The header line is skipped by the parser, so an export can be imported again.
+ *
+ * @author agavrikov
+ */
+public class SlotCsvWriter implements Closeable {
+
+    private static final String HEADER = "guid,date,time_from,time_to,conveyor_id";
+
+    private final Writer writer;
+
+    public SlotCsvWriter(OutputStream outputStream) throws IOException {
+        this.writer = new BufferedWriter(new OutputStreamWriter(outputStream, StandardCharsets.UTF_8));
+        writer.write(HEADER);
+        writer.write('\n');
+    }
+
+    public void write(Slot slot) throws IOException {
+        String guid = slot.getGuid();
+        if (guid.startsWith("\"") || guid.indexOf(',') >= 0 || guid.indexOf('\n') >= 0) {
+            writer.write('"');
+            writer.write(guid.replace("\"", "\"\""));
+            writer.write('"');
+        } else {
+            writer.write(guid);
+        }
+        writer.write(',');
+        writer.write(slot.getDate().toString());
+        writer.write(',');
+        writer.write(slot.getTimeFrom().toString());
+        writer.write(',');
+        writer.write(slot.getTimeTo().toString());
+        writer.write(',');
+        if (!slot.isFree()) {
+            writer.write(Integer.toString(slot.getConveyorId()));
+        }
+        writer.write('\n');
+    }
+
+    @Override
+    public void close() throws IOException {
+        writer.close();
+    }
+}
@@ -0,0 +1,244 @@
+package warehouse_planning.parser;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
+
+import javax.xml.parsers.ParserConfigurationException;
+
+import org.apache.poi.ooxml.util.SAXHelper;
+import org.apache.poi.openxml4j.exceptions.OpenXML4JException;
+import org.apache.poi.openxml4j.opc.OPCPackage;
+import org.apache.poi.ss.usermodel.DataFormatter;
+import org.apache.poi.ss.usermodel.DateUtil;
+import org.apache.poi.ss.util.CellReference;
+import org.apache.poi.xssf.eventusermodel.ReadOnlySharedStringsTable;
+import org.apache.poi.xssf.eventusermodel.XSSFReader;
+import org.apache.poi.xssf.eventusermodel.XSSFSheetXMLHandler;
+import org.apache.poi.xssf.usermodel.XSSFComment;
+import org.xml.sax.InputSource;
+import org.xml.sax.SAXException;
+import org.xml.sax.XMLReader;
+
+import warehouse_planning.model.Slot;
+
+/**
+ * Streaming reader of slot sheets: the sheet XML is parsed with SAX, rows are turned into slots as they are read
+ * and handed to the consumer in chunks of a fixed size, so memory does not grow with the number of rows.
+ * <p>
+ * Columns are guid, date, time from and time to. Rows with missing cells, cells that are not dates or times, or
+ * with time from not before time to are rejected with a reason; an invalid first row is taken for a header.
+ *
+ * @author agavrikov
+ */
+public class SlotSheetParser implements XSSFSheetXMLHandler.SheetContentsHandler {
+
+    private static final int GUID = 0;
+    private static final int DATE = 1;
+    private static final int TIME_FROM = 2;
+    private static final int TIME_TO = 3;
+    private static final String[] COLUMN_NAMES = {"guid", "date", "time from", "time to"};
+
+    private final long warehouseId;
+    private final int chunkSize;
+    private final Consumer<List<Slot>> consumer;
+    private final BiConsumer<Integer, String> rejected;
+
+    private final String[] cells = new String[4];
+    private List<Slot> chunk;
+    private boolean firstRow = true;
+    private String reason;
+
+    private SlotSheetParser(long warehouseId, int chunkSize, Consumer<List<Slot>> consumer,
+                            BiConsumer<Integer, String> rejected) {
+        this.warehouseId = warehouseId;
+        this.chunkSize = chunkSize;
+        this.consumer = consumer;
+        this.rejected = rejected;
+        this.chunk = new ArrayList<>(chunkSize);
+    }
+
+    /**
+     * Reads the first sheet of the package, rejected rows are skipped.
+     */
+    public static void parse(OPCPackage pkg, long warehouseId, int chunkSize, Consumer<List<Slot>> consumer)
+            throws IOException, OpenXML4JException, SAXException {
+        parse(pkg, 0, warehouseId, chunkSize, consumer, (rowNum, reason) -> { });
+    }
+
+    /**
+     * @return names of the sheets in workbook order
+     */
+    public static List<String> getSheetNames(OPCPackage pkg) throws IOException, OpenXML4JException {
+        XSSFReader.SheetIterator sheets = (XSSFReader.SheetIterator) new XSSFReader(pkg).getSheetsData();
+        List<String> names = new ArrayList<>();
+        while (sheets.hasNext()) {
+            sheets.next().close();
+            names.add(sheets.getSheetName());
+        }
+        return names;
+    }
+
+    /**
+     * Reads the sheet at {@code sheetIndex} of the package.
+     *
+     * @param rejected gets the 1-based number and the reason of every rejected row
+     */
+    public static void parse(OPCPackage pkg, int sheetIndex, long warehouseId, int chunkSize,
+                             Consumer<List<Slot>> consumer, BiConsumer<Integer, String> rejected)
+            throws IOException, OpenXML4JException, SAXException {
+        XSSFReader reader = new XSSFReader(pkg);
+        Iterator<InputStream> sheets = reader.getSheetsData();
+        for (int i = 0; i < sheetIndex && sheets.hasNext(); ++i) {
+            sheets.next().close();
+        }
+        if (!sheets.hasNext()) {
+            return;
+        }
+
+        SlotSheetParser parser = new SlotSheetParser(warehouseId, chunkSize, consumer, rejected);
+        XMLReader xmlReader;
+        try {
+            xmlReader = SAXHelper.newXMLReader();
+        } catch (ParserConfigurationException e) {
+            throw new SAXException(e);
+        }
+        xmlReader.setContentHandler(new XSSFSheetXMLHandler(reader.getStylesTable(),
+                new ReadOnlySharedStringsTable(pkg), parser, new RawDateFormatter(), false));
+        try (InputStream sheet = sheets.next()) {
+            xmlReader.parse(new InputSource(sheet));
+        }
+        parser.flush();
+    }
+
+    @Override
+    public void startRow(int rowNum) {
+        for (int i = 0; i < cells.length; ++i) {
+            cells[i] = null;
+        }
+    }
+
+    @Override
+    public void endRow(int rowNum) {
+        Slot slot = toSlot();
+        if (slot == null && reason == null) {
+            return;
+        }
+        boolean header = firstRow;
+        firstRow = false;
+        if (slot == null) {
+            if (!header) {
+                rejected.accept(rowNum + 1, reason);
+            }
+            return;
+        }
+        chunk.add(slot);
+        if (chunk.size() == chunkSize) {
+            flush();
+        }
+    }
+
+    @Override
+    public void cell(String cellReference, String formattedValue, XSSFComment comment) {
+        int column = new CellReference(cellReference).getCol();
+        if (column < cells.length) {
+            cells[column] = formattedValue;
+        }
+    }
+
+    /**
+     * @return the slot of the row, {@code null} with the {@link #reason} if it is rejected, with no reason if
+     * the row is empty
+     */
+    private Slot toSlot() {
+        reason = null;
+        int missing = -1;
+        boolean empty = true;
+        for (int i = cells.length - 1; i >= 0; --i) {
+            if (cells[i] == null) {
+                missing = i;
+            } else {
+                empty = false;
+            }
+        }
+        if (empty) {
+            return null;
+        }
+        if (missing >= 0) {
+            reason = "missing " + COLUMN_NAMES[missing];
+            return null;
+        }
+        LocalDate date;
+        LocalTime timeFrom;
+        LocalTime timeTo;
+        int column = DATE;
+        try {
+            date = toLocalDateTime(cells[DATE]).toLocalDate();
+            column = TIME_FROM;
+            timeFrom = toLocalTime(cells[TIME_FROM]);
+            column = TIME_TO;
+            timeTo = toLocalTime(cells[TIME_TO]);
+        } catch (NumberFormatException e) {
+            reason = COLUMN_NAMES[column] + " is not a date or time: " + cells[column];
+            return null;
+        }
+
+        if (timeFrom.isAfter(timeTo) || timeFrom.equals(timeTo)) {
+            reason = "time from " + timeFrom + " is not before time to " + timeTo;
+            return null;
+        }
+        return new Slot(0, cells[GUID], warehouseId, date, timeFrom, timeTo, null, LocalDateTime.now());
+    }
+
+    private void flush() {
+        if (!chunk.isEmpty()) {
+            consumer.accept(chunk);
+            chunk = new ArrayList<>(chunkSize);
+        }
+    }
+
+    private static LocalDateTime toLocalDateTime(String value) {
+        LocalDateTime time = DateUtil.getLocalDateTime(Double.parseDouble(value));
+        if (time == null) {
+            throw new NumberFormatException(value);
+        }
+        return time;
+    }
+
+    private static LocalTime toLocalTime(String value) {
+        LocalTime time = toLocalDateTime(value).toLocalTime();
+        return LocalTime.of(time.getHour(), time.getMinute());
+    }
+
+    /**
+     * Keeps date cells as the raw Excel serial value, so they are not rendered with a locale-dependent format.
+     * Whether a format is a date format is remembered per format index of the workbook: {@code DateUtil} matches
+     * it with regular expressions and only caches the last format, while date and time formats alternate in a row.
+     */
+    private static class RawDateFormatter extends DataFormatter {
+
+        private final Map<Integer, Boolean> dateFormats = new HashMap<>();
+
+        @Override
+        public String formatRawCellContents(double value, int formatIndex, String formatString) {
+            Boolean dateFormat = dateFormats.get(formatIndex);
+            if (dateFormat == null) {
+                dateFormat = DateUtil.isADateFormat(formatIndex, formatString);
+                dateFormats.put(formatIndex, dateFormat);
+            }
+            if (dateFormat) {
+                return Double.toString(value);
+            }
+            return super.formatRawCellContents(value, formatIndex, formatString);
+        }
+    }
+}
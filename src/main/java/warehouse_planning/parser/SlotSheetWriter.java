@@ -0,0 +1,95 @@
+package warehouse_planning.parser;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.OutputStream;
+
+import org.apache.poi.ss.SpreadsheetVersion;
+import org.apache.poi.ss.usermodel.CellStyle;
+import org.apache.poi.ss.usermodel.Row;
+import org.apache.poi.xssf.streaming.SXSSFSheet;
+import org.apache.poi.xssf.streaming.SXSSFWorkbook;
+
+import warehouse_planning.model.Slot;
+
+/**
+ * Streaming writer of slot sheets in the columns of {@link SlotSheetParser} with the conveyor as an extra column.
+ * Only a window of rows is kept in memory, older rows are flushed to a compressed temporary file; the workbook is
+ * written out by {@link #finish(OutputStream)}. A sheet that reaches the row limit of the format is continued on
+ * the next one.
+ *
+ * @author agavrikov
+ */
+public class SlotSheetWriter implements Closeable {
+
+    private static final int ROW_WINDOW = 100;
+    private static final int MAX_ROWS = SpreadsheetVersion.EXCEL2007.getMaxRows();
+    private static final double MINUTES_PER_DAY = 24 * 60;
+
+    private final SXSSFWorkbook workbook;
+    private final CellStyle dateStyle;
+    private final CellStyle timeStyle;
+
+    private SXSSFSheet sheet;
+    private int rowNum;
+
+    public SlotSheetWriter() {
+        this.workbook = new SXSSFWorkbook(ROW_WINDOW);
+        workbook.setCompressTempFiles(true);
+        short dateFormat = workbook.createDataFormat().getFormat("yyyy-mm-dd");
+        short timeFormat = workbook.createDataFormat().getFormat("hh:mm");
+        this.dateStyle = workbook.createCellStyle();
+        dateStyle.setDataFormat(dateFormat);
+        this.timeStyle = workbook.createCellStyle();
+        timeStyle.setDataFormat(timeFormat);
+        newSheet();
+    }
+
+    public void write(Slot slot) {
+        if (rowNum == MAX_ROWS) {
+            newSheet();
+        }
+        Row row = sheet.createRow(rowNum++);
+        row.createCell(0).setCellValue(slot.getGuid());
+        row.createCell(1).setCellValue(slot.getDate());
+        row.getCell(1).setCellStyle(dateStyle);
+        row.createCell(2).setCellValue(toExcelTime(slot.getTimeFrom().toSecondOfDay() / 60));
+        row.getCell(2).setCellStyle(timeStyle);
+        row.createCell(3).setCellValue(toExcelTime(slot.getTimeTo().toSecondOfDay() / 60));
+        row.getCell(3).setCellStyle(timeStyle);
+        if (!slot.isFree()) {
+            row.createCell(4).setCellValue(slot.getConveyorId());
+        }
+    }
+
+    public void finish(OutputStream outputStream) throws IOException {
+        workbook.write(outputStream);
+    }
+
+    /**
+     * Deletes the temporary files of the workbook.
+     */
+    @Override
+    public void close() throws IOException {
+        workbook.dispose();
+        workbook.close();
+    }
+
+    private void newSheet() {
+        sheet = workbook.createSheet("Slots " + (workbook.getNumberOfSheets() + 1));
+        Row header = sheet.createRow(0);
+        header.createCell(0).setCellValue("guid");
+        header.createCell(1).setCellValue("date");
+        header.createCell(2).setCellValue("time_from");
+        header.createCell(3).setCellValue("time_to");
+        header.createCell(4).setCellValue("conveyor_id");
+        rowNum = 1;
+    }
+
+    /**
+     * @return time of day as a fraction of a day, the way Excel stores it
+     */
+    private static double toExcelTime(int minuteOfDay) {
+        return minuteOfDay / MINUTES_PER_DAY;
+    }
+}
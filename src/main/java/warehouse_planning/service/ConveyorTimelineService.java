@@ -0,0 +1,131 @@
+package warehouse_planning.service;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import warehouse_planning.algorithm.ConveyorTimeline;
+import warehouse_planning.algorithm.SlotBuffer;
+import warehouse_planning.mapper.SlotBufferMapper;
+import warehouse_planning.model.Slot;
+
+/**
+ * Incremental planning: new slots of a planned warehouse are fitted into the conveyor timelines of its last plan.
+ * Timelines are loaded on first use and kept in memory until the warehouse is re-planned or its slots change, up
+ * to {@code planning.timelineMaxSlots} planned slots over all warehouses; an evicted timeline is loaded again.
+ *
+ * @author agavrikov
+ */
+@Component
+public class ConveyorTimelineService {
+
+    private final NamedParameterJdbcTemplate jdbcTemplate;
+    private final double drift;
+
+    private final Cache<Long, PlannedTimeline> timelines;
+
+    /**
+     * Assigns conveyors to new slots of one warehouse, slots of a warehouse that has not been planned stay free.
+     *
+     * @return {@code true} if the warehouse now uses more conveyors than its last full planning allows with drift
+     */
+    public boolean assign(long warehouseId, List<Slot> slots) {
+        PlannedTimeline planned = timelines.getIfPresent(warehouseId);
+        if (planned == null) {
+            PlannedTimeline loaded = load(warehouseId);
+            planned = timelines.asMap().putIfAbsent(warehouseId, loaded);
+            if (planned == null) {
+                planned = loaded;
+            }
+        }
+        if (planned.conveyorCount == 0) {
+            return false;
+        }
+        List<Slot> sorted = new ArrayList<>(slots);
+        Collections.sort(sorted);
+        synchronized (planned) {
+            for (Slot slot : sorted) {
+                slot.setConveyorId(planned.timeline.assign(slot.getMinuteFrom(), slot.getMinuteTo()));
+            }
+            return planned.timeline.conveyorCount() > Math.ceil(planned.conveyorCount * (1 + drift));
+        }
+    }
+
+    /**
+     * Frees the intervals of planned slots before they are assigned again, e.g. because their times changed.
+     * A timeline that is not loaded is left alone, it is read from the slots as they are when it is needed.
+     *
+     * @param slots previous intervals and conveyors of the slots, free slots are skipped
+     */
+    public void release(long warehouseId, SlotBuffer slots) {
+        PlannedTimeline planned = timelines.getIfPresent(warehouseId);
+        if (planned == null) {
+            return;
+        }
+        synchronized (planned) {
+            for (int i = 0; i < slots.size(); ++i) {
+                planned.timeline.remove(slots.getConveyor(i), slots.getMinuteFrom(i), slots.getMinuteTo(i));
+            }
+        }
+    }
+
+    /**
+     * Replaces the timeline of the warehouse with a full planning result.
+     */
+    public void reset(long warehouseId, SlotBuffer slots, int conveyorCount) {
+        timelines.put(warehouseId, new PlannedTimeline(ConveyorTimeline.of(slots), conveyorCount));
+    }
+
+    public void invalidate(long warehouseId) {
+        timelines.invalidate(warehouseId);
+    }
+
+    /**
+     * Reads the planned slots of the warehouse, outside of the cache so that a long query does not block it.
+     */
+    private PlannedTimeline load(long warehouseId) {
+        String sql =
+            "SELECT id, starts_at, ends_at, conveyor_id " +
+            "  FROM slot " +
+            " WHERE warehouse_id = :warehouse_id " +
+            "   AND conveyor_id IS NOT NULL";
+        SlotBuffer slots = new SlotBuffer(1024);
+        jdbcTemplate.query(sql, new MapSqlParameterSource("warehouse_id", warehouseId), new SlotBufferMapper(slots));
+        ConveyorTimeline timeline = ConveyorTimeline.of(slots);
+        return new PlannedTimeline(timeline, timeline.conveyorCount());
+    }
+
+    private static class PlannedTimeline {
+        private final ConveyorTimeline timeline;
+        private final int conveyorCount;
+
+        private PlannedTimeline(ConveyorTimeline timeline, int conveyorCount) {
+            this.timeline = timeline;
+            this.conveyorCount = conveyorCount;
+        }
+    }
+
+    /**
+     * @param maxSlots planned slots kept in the timelines of all warehouses, a timeline is weighed when it is put
+     */
+    @Autowired
+    public ConveyorTimelineService(NamedParameterJdbcTemplate jdbcTemplate,
+                                   @Value("${planning.drift:0.1}") double drift,
+                                   @Value("${planning.timelineMaxSlots:5000000}") long maxSlots) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.drift = drift;
+        this.timelines = Caffeine.newBuilder()
+                .maximumWeight(maxSlots)
+                .<Long, PlannedTimeline>weigher((warehouseId, planned) ->
+                        Math.max(planned.timeline.intervalCount(), 1))
+                .build();
+    }
+}
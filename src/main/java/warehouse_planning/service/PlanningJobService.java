@@ -0,0 +1,129 @@
+package warehouse_planning.service;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+import javax.annotation.PreDestroy;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import warehouse_planning.algorithm.CapacityPlanning;
+import warehouse_planning.model.PlanningJob;
+
+/**
+ * Runs planning of warehouses in the background on a bounded executor. A warehouse has at most one active job of a
+ * kind, a request for a warehouse that is being planned the same way joins the active job.
+ *
+ * @author agavrikov
+ */
+@Component
+public class PlanningJobService {
+
+    private static final int FINISHED_JOBS = 1000;
+
+    private final SlotPlanningService planningService;
+    private final ThreadPoolExecutor executor;
+
+    private final Map<String, PlanningJob> activeJobs = new ConcurrentHashMap<>();
+    private final Map<String, PlanningJob> jobs = Collections.synchronizedMap(
+            new LinkedHashMap<String, PlanningJob>() {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<String, PlanningJob> eldest) {
+                    return size() > FINISHED_JOBS && eldest.getValue().isFinished();
+                }
+            });
+
+    public PlanningJob submit(long warehouseId) {
+        return submit(new PlanningJob(warehouseId));
+    }
+
+    /**
+     * Submits a planning of the warehouse on {@code conveyorCapacity} conveyors.
+     */
+    public PlanningJob submit(long warehouseId, int conveyorCapacity, CapacityPlanning.Mode mode) {
+        return submit(new PlanningJob(warehouseId, conveyorCapacity, mode.name()));
+    }
+
+    private PlanningJob submit(PlanningJob newJob) {
+        PlanningJob job = activeJobs.compute(key(newJob), (key, active) ->
+                active != null && !active.isFinished() ? active : newJob);
+        if (jobs.putIfAbsent(job.getId(), job) == null) {
+            try {
+                executor.execute(() -> run(job));
+            } catch (RejectedExecutionException e) {
+                finish(job, e);
+            }
+        }
+        return job;
+    }
+
+    /**
+     * Submits a job for each warehouse, they run {@code planning.jobs.threads} at a time.
+     */
+    public List<PlanningJob> submit(List<Long> warehouseIds) {
+        List<PlanningJob> submitted = new ArrayList<>(warehouseIds.size());
+        warehouseIds.forEach(warehouseId -> submitted.add(submit(warehouseId)));
+        return submitted;
+    }
+
+    public PlanningJob getJob(String id) {
+        return jobs.get(id);
+    }
+
+    private void run(PlanningJob job) {
+        job.start();
+        try {
+            if (job.getConveyorCapacity() == null) {
+                planningService.planning(job.getWarehouseId(), job);
+            } else {
+                job.setCapacityReport(planningService.planning(job.getWarehouseId(), job.getConveyorCapacity(),
+                        CapacityPlanning.Mode.valueOf(job.getMode()), job));
+            }
+            finish(job, null);
+        } catch (Throwable e) {
+            // an Error fails the job too, so that it does not stay active for its warehouse
+            finish(job, e);
+            if (e instanceof Error) {
+                throw (Error) e;
+            }
+        }
+    }
+
+    private void finish(PlanningJob job, Throwable e) {
+        activeJobs.remove(key(job), job);
+        if (e == null) {
+            job.finish();
+        } else {
+            job.fail(e);
+        }
+    }
+
+    private static String key(PlanningJob job) {
+        return job.getWarehouseId() + (job.getConveyorCapacity() == null ? ""
+                : "/" + job.getConveyorCapacity() + "/" + job.getMode());
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    @Autowired
+    public PlanningJobService(SlotPlanningService planningService,
+                              @Value("${planning.jobs.threads:2}") int threads,
+                              @Value("${planning.jobs.queue:100}") int queue) {
+        this.planningService = planningService;
+        this.executor = new ThreadPoolExecutor(threads, threads, 0, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queue));
+    }
+}
@@ -0,0 +1,199 @@
+package warehouse_planning.service;
+
+import java.time.Duration;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.function.Supplier;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Component;
+import warehouse_planning.algorithm.OccupancyTimeline;
+import warehouse_planning.model.SlotPage;
+import warehouse_planning.model.Warehouse;
+import warehouse_planning.model.WarehouseVersion;
+
+/**
+ * Read-through cache of the warehouse versions, slot pages, slot counts, occupancy timelines and the warehouse list.
+ * <p>
+ * Entries of a warehouse are keyed by its stored {@code warehouse.version}, which every change increments in the
+ * transaction of the change. The cached version is dropped with the entries after the commit, so a query that raced
+ * with the change can not put a stale result back under the current version. The warehouse list is keyed by the
+ * versions of all warehouses.
+ *
+ * @author agavrikov
+ */
+@Component
+public class SlotCache {
+
+    /** key of the warehouse list in {@link #versions}, warehouse ids start at 1 */
+    private static final long WAREHOUSES = 0;
+
+    private final Cache<Key, SlotPage> pages;
+    private final Cache<Key, Integer> counts;
+    private final Cache<Key, OccupancyTimeline> occupancy;
+    private final Cache<String, List<Warehouse>> warehouses;
+    private final Cache<Long, WarehouseVersion> versions;
+
+    private final NamedParameterJdbcTemplate jdbcTemplate;
+
+    /**
+     * Current version of the warehouse, read from the database once after every change.
+     */
+    public WarehouseVersion getVersion(long warehouseId) {
+        return versions.get(warehouseId, this::loadVersion);
+    }
+
+    /**
+     * Current version of the warehouse list, read from the database once after every change.
+     */
+    public WarehouseVersion getWarehousesVersion() {
+        return versions.get(WAREHOUSES, key -> loadWarehousesVersion());
+    }
+
+    /**
+     * @param filter values the page depends on besides the warehouse, compared by {@code equals}
+     */
+    public SlotPage getPage(long warehouseId, List<Object> filter, Supplier<SlotPage> loader) {
+        return pages.get(new Key(warehouseId, getVersion(warehouseId).getVersion(), filter), key -> loader.get());
+    }
+
+    public int getCount(long warehouseId, List<Object> filter, Supplier<Integer> loader) {
+        return counts.get(new Key(warehouseId, getVersion(warehouseId).getVersion(), filter), key -> loader.get());
+    }
+
+    public OccupancyTimeline getOccupancy(long warehouseId, Supplier<OccupancyTimeline> loader) {
+        return occupancy.get(new Key(warehouseId, getVersion(warehouseId).getVersion(), Collections.emptyList()),
+                key -> loader.get());
+    }
+
+    public List<Warehouse> getWarehouses(Supplier<List<Warehouse>> loader) {
+        return warehouses.get(getWarehousesVersion().getETag(), key -> loader.get());
+    }
+
+    /**
+     * Drops the version of the warehouse and its entries, called after a change of its slots is committed.
+     */
+    public void invalidate(long warehouseId) {
+        versions.invalidate(warehouseId);
+        pages.asMap().keySet().removeIf(key -> key.warehouseId == warehouseId);
+        counts.asMap().keySet().removeIf(key -> key.warehouseId == warehouseId);
+        occupancy.asMap().keySet().removeIf(key -> key.warehouseId == warehouseId);
+    }
+
+    public void invalidateWarehouses() {
+        versions.invalidate(WAREHOUSES);
+        warehouses.invalidateAll();
+    }
+
+    private WarehouseVersion loadVersion(long warehouseId) {
+        String sql =
+            "SELECT version, modified_time " +
+            "  FROM warehouse " +
+            " WHERE id = :id";
+        List<WarehouseVersion> found = jdbcTemplate.query(sql, new MapSqlParameterSource("id", warehouseId),
+                (rs, rowNum) -> new WarehouseVersion(rs.getLong("version"),
+                        "\"" + warehouseId + "-" + rs.getLong("version") + "\"",
+                        rs.getTimestamp("modified_time").getTime()));
+        return found.isEmpty() ? new WarehouseVersion(-1, "\"" + warehouseId + "--1\"", -1) : found.get(0);
+    }
+
+    /**
+     * The number of warehouses, the last id and the sum of the versions: a new warehouse raises the last id, a
+     * deleted one lowers the count and every other change raises the sum.
+     */
+    private WarehouseVersion loadWarehousesVersion() {
+        String sql =
+            "SELECT count(*) || '-' || COALESCE(max(id), 0) || '-' || COALESCE(sum(version), 0) " +
+            "  FROM warehouse";
+        String tag = jdbcTemplate.queryForObject(sql, new MapSqlParameterSource(), String.class);
+        return new WarehouseVersion(-1, "\"w-" + tag + "\"", -1);
+    }
+
+    public Map<String, Object> toMap() {
+        Map<String, Object> map = new LinkedHashMap<>();
+        map.put("pages", toMap(pages));
+        map.put("counts", toMap(counts));
+        map.put("occupancy", toMap(occupancy));
+        map.put("warehouses", toMap(warehouses));
+        map.put("versions", toMap(versions));
+        return map;
+    }
+
+    private static Map<String, Object> toMap(Cache<?, ?> cache) {
+        CacheStats stats = cache.stats();
+        Map<String, Object> map = new LinkedHashMap<>();
+        map.put("size", cache.estimatedSize());
+        map.put("hits", stats.hitCount());
+        map.put("misses", stats.missCount());
+        map.put("hitRate", stats.hitRate());
+        map.put("evictions", stats.evictionCount());
+        map.put("loadMillis", stats.totalLoadTime() / 1_000_000);
+        return map;
+    }
+
+    private static <K, V> Cache<K, V> build(long maxSize, Duration ttl) {
+        return Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(ttl)
+                .recordStats()
+                .build();
+    }
+
+    private static final class Key {
+
+        private final long warehouseId;
+        private final long version;
+        private final List<Object> filter;
+
+        private Key(long warehouseId, long version, List<Object> filter) {
+            this.warehouseId = warehouseId;
+            this.version = version;
+            this.filter = filter;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof Key)) {
+                return false;
+            }
+            Key key = (Key) o;
+            return warehouseId == key.warehouseId && version == key.version && filter.equals(key.filter);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(warehouseId, version, filter);
+        }
+    }
+
+    @Autowired
+    public SlotCache(NamedParameterJdbcTemplate jdbcTemplate, @Value("${cache.maxSize:10000}") long maxSize,
+                     @Value("${cache.ttlSeconds:60}") long ttlSeconds,
+                     @Value("${cache.occupancyMaxSlots:5000000}") long occupancyMaxSlots) {
+        this.jdbcTemplate = jdbcTemplate;
+        Duration ttl = Duration.ofSeconds(ttlSeconds);
+        this.pages = build(maxSize, ttl);
+        this.counts = build(maxSize, ttl);
+        // kept until the slots change, 16 bytes per slot
+        this.occupancy = Caffeine.newBuilder()
+                .maximumWeight(occupancyMaxSlots)
+                .<Key, OccupancyTimeline>weigher((key, timeline) -> Math.max(timeline.size(), 1))
+                .recordStats()
+                .build();
+        this.warehouses = build(1, ttl);
+        // dropped on every change, the ttl bounds changes made outside the application
+        this.versions = build(maxSize, ttl);
+    }
+}
@@ -0,0 +1,71 @@
+package warehouse_planning.service;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import warehouse_planning.config.SlotMetrics;
+import warehouse_planning.model.SlotFilter;
+import warehouse_planning.parser.SlotCsvWriter;
+import warehouse_planning.parser.SlotSheetWriter;
+
+/**
+ * Export of the planned slots of a warehouse in the columns of the import.
+ *
+ * @author agavrikov
+ */
+@Component
+public class SlotExportService {
+
+    private static final SlotFilter ALL_SLOTS = new SlotFilter(null, null, null, null, null, null, null);
+
+    private final SlotService slotService;
+    private final SlotMetrics slotMetrics;
+
+    /**
+     * Writes the planned slots of the warehouse as CSV while they are read through the cursor.
+     */
+    public void exportCsv(long warehouseId, OutputStream outputStream) throws IOException {
+        long start = System.nanoTime();
+        long[] rows = {0};
+        try (SlotCsvWriter writer = new SlotCsvWriter(outputStream)) {
+            slotService.forEachSlot(warehouseId, ALL_SLOTS, slot -> {
+                try {
+                    writer.write(slot);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+                rows[0]++;
+            });
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+        slotMetrics.getExport().record(start, rows[0]);
+    }
+
+    /**
+     * Writes the planned slots of the warehouse as a sheet. Rows are read through the cursor and kept on disk by
+     * {@link SlotSheetWriter} until the workbook is complete, since the package can only be zipped at the end.
+     */
+    public void exportSheet(long warehouseId, OutputStream outputStream) throws IOException {
+        long start = System.nanoTime();
+        long[] rows = {0};
+        try (SlotSheetWriter writer = new SlotSheetWriter()) {
+            slotService.forEachSlot(warehouseId, ALL_SLOTS, slot -> {
+                writer.write(slot);
+                rows[0]++;
+            });
+            writer.finish(outputStream);
+        }
+        slotMetrics.getExport().record(start, rows[0]);
+    }
+
+    @Autowired
+    public SlotExportService(SlotService slotService, SlotMetrics slotMetrics) {
+        this.slotService = slotService;
+        this.slotMetrics = slotMetrics;
+    }
+}
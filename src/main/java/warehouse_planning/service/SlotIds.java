@@ -0,0 +1,56 @@
+package warehouse_planning.service;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Component;
+
+/**
+ * Hands out slot ids from blocks reserved in the database: a call of {@code nextval} returns the first id of a
+ * block as long as the increment of the sequence, the other ids of the block are given out locally. Without the
+ * block increment of migration 008 every block is a single id.
+ *
+ * @author agavrikov
+ */
+@Component
+public class SlotIds {
+
+    private static final String SEQUENCE = "slot_seq";
+
+    private final NamedParameterJdbcTemplate jdbcTemplate;
+
+    private long blockSize;
+    private long next;
+    private long limit;
+
+    /**
+     * @return {@code count} new ids, in ascending order
+     */
+    public synchronized long[] next(int count) {
+        if (blockSize == 0) {
+            String sql =
+                "SELECT increment_by " +
+                "  FROM pg_sequences " +
+                " WHERE schemaname = current_schema() AND sequencename = :sequence";
+            blockSize = jdbcTemplate.queryForObject(sql, new MapSqlParameterSource("sequence", SEQUENCE), Long.class);
+        }
+        long[] ids = new long[count];
+        for (int i = 0; i < count; ++i) {
+            if (next == limit) {
+                next = jdbcTemplate.getJdbcTemplate().queryForObject("SELECT nextval('" + SEQUENCE + "')", Long.class);
+                limit = next + blockSize;
+            }
+            ids[i] = next++;
+        }
+        return ids;
+    }
+
+    public long next() {
+        return next(1)[0];
+    }
+
+    @Autowired
+    public SlotIds(NamedParameterJdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+}
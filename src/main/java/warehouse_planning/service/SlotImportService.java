@@ -0,0 +1,252 @@
+package warehouse_planning.service;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import javax.annotation.PreDestroy;
+
+import org.apache.poi.ooxml.POIXMLException;
+import org.apache.poi.openxml4j.exceptions.OpenXML4JException;
+import org.apache.poi.openxml4j.opc.OPCPackage;
+import org.apache.poi.openxml4j.opc.PackageAccess;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.web.multipart.MultipartFile;
+import org.xml.sax.SAXException;
+
+import warehouse_planning.config.SlotMetrics;
+import warehouse_planning.model.ImportMode;
+import warehouse_planning.model.ImportReport;
+import warehouse_planning.model.RejectedRow;
+import warehouse_planning.model.Slot;
+import warehouse_planning.parser.SlotSheetParser;
+
+/**
+ * Import of several workbooks with any number of sheets. Sheets are parsed concurrently on a bounded pool, the
+ * chunks of slots go through one bounded queue to the calling thread, which writes them with
+ * {@link SlotIngestService#copyBatch(List)} or {@link SlotIngestService#upsertBatch(long, List)}. A full queue
+ * blocks the parsers until the writer catches up, so memory is bounded by the queue whatever the size of the upload.
+ * <p>
+ * An import keeps at most {@code import.threads} sheets on the pool and submits the next one when a sheet is done.
+ * The queue of the pool holds {@code import.queueSheets} sheets of all imports, an import that does not fit fails
+ * with {@link RejectedExecutionException} before it writes anything.
+ *
+ * @author agavrikov
+ */
+@Component
+public class SlotImportService {
+
+    private static final int CHUNK_SIZE = 10_000;
+    private static final int REJECTED_ROWS_LIMIT = 1000;
+    /** wait for a free place on the parse pool */
+    private static final long RETRY_MILLIS = 100;
+    /** put by every sheet task when it is done, compared by identity */
+    private static final List<Slot> END = Collections.unmodifiableList(new ArrayList<>());
+
+    private final SlotIngestService ingestService;
+    private final SlotMetrics slotMetrics;
+    private final ThreadPoolExecutor parsePool;
+    private final int threads;
+    private final int queueChunks;
+
+    /**
+     * Imports every sheet of every file, rows that are not valid slots are rejected and reported. On upsert a slot
+     * number that comes again within the import is skipped: the first row the writer gets wins, and with sheets
+     * parsed concurrently that is not always the first one in the files.
+     */
+    public ImportReport importSheets(long warehouseId, List<MultipartFile> files, ImportMode mode)
+            throws IOException {
+        long start = System.nanoTime();
+        BlockingQueue<List<Slot>> queue = new ArrayBlockingQueue<>(queueChunks);
+        Rejections rejections = new Rejections();
+        List<File> workbooks = new ArrayList<>(files.size());
+        List<Runnable> sheets = new ArrayList<>();
+        List<Future<?>> tasks = new ArrayList<>();
+        Set<String> guids = new HashSet<>();
+        long rows = 0;
+        long changed = 0;
+        long duplicates = 0;
+        try {
+            for (MultipartFile file : files) {
+                String fileName = file.getOriginalFilename();
+                File workbook = File.createTempFile("slots", ".xlsx");
+                workbooks.add(workbook);
+                file.transferTo(workbook);
+                List<String> sheetNames;
+                try {
+                    sheetNames = getSheetNames(workbook);
+                } catch (IOException | OpenXML4JException | POIXMLException | IllegalArgumentException e) {
+                    rejections.add(new RejectedRow(fileName, null, 0, "not a workbook: " + e.getMessage()));
+                    continue;
+                }
+                for (int i = 0; i < sheetNames.size(); ++i) {
+                    int sheetIndex = i;
+                    sheets.add(() -> parseSheet(warehouseId, workbook, fileName, sheetIndex,
+                            sheetNames.get(sheetIndex), queue, rejections));
+                }
+            }
+
+            int next = 0;
+            int ended = 0;
+            while (ended < sheets.size()) {
+                next = submit(sheets, next, tasks, ended);
+                List<Slot> chunk = ended < tasks.size() ? queue.take()
+                        : queue.poll(RETRY_MILLIS, TimeUnit.MILLISECONDS);
+                if (chunk == null) {
+                    continue;
+                }
+                if (chunk == END) {
+                    ended++;
+                } else if (mode == ImportMode.APPEND) {
+                    ingestService.copyBatch(chunk);
+                    rows += chunk.size();
+                    changed += chunk.size();
+                } else {
+                    List<Slot> distinct = new ArrayList<>(chunk.size());
+                    for (Slot slot : chunk) {
+                        if (guids.add(slot.getGuid())) {
+                            distinct.add(slot);
+                        }
+                    }
+                    duplicates += chunk.size() - distinct.size();
+                    changed += ingestService.upsertBatch(warehouseId, distinct);
+                    rows += distinct.size();
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new CancellationException("import of warehouse " + warehouseId + " interrupted");
+        } finally {
+            tasks.forEach(task -> task.cancel(true));
+            for (File workbook : workbooks) {
+                Files.deleteIfExists(workbook.toPath());
+            }
+        }
+        slotMetrics.getDownload().record(start, rows);
+        return new ImportReport(warehouseId, mode, files.size(), sheets.size(), rows, changed, duplicates,
+                rejections.count.get(), rejections.getRows(), (System.nanoTime() - start) / 1_000_000);
+    }
+
+    /**
+     * Submits sheets until {@code import.threads} sheets of the import are on the pool. A full pool fails the import
+     * only before its first sheet; later sheets stay pending and are submitted again, nothing is written twice.
+     *
+     * @return index of the next sheet to submit
+     */
+    private int submit(List<Runnable> sheets, int next, List<Future<?>> tasks, int ended) {
+        while (next < sheets.size() && tasks.size() - ended < threads) {
+            try {
+                tasks.add(parsePool.submit(sheets.get(next)));
+            } catch (RejectedExecutionException e) {
+                if (tasks.isEmpty()) {
+                    throw e;
+                }
+                break;
+            }
+            next++;
+        }
+        return next;
+    }
+
+    private static List<String> getSheetNames(File workbook) throws IOException, OpenXML4JException {
+        OPCPackage pkg = OPCPackage.open(workbook, PackageAccess.READ);
+        try {
+            return SlotSheetParser.getSheetNames(pkg);
+        } finally {
+            pkg.revert();
+        }
+    }
+
+    /**
+     * Runs on the parse pool. Every task opens the package on its own, as packages are not safe for concurrent use.
+     */
+    private static void parseSheet(long warehouseId, File workbook, String fileName, int sheetIndex,
+                                   String sheetName, BlockingQueue<List<Slot>> queue, Rejections rejections) {
+        try {
+            OPCPackage pkg = OPCPackage.open(workbook, PackageAccess.READ);
+            try {
+                SlotSheetParser.parse(pkg, sheetIndex, warehouseId, CHUNK_SIZE, chunk -> put(queue, chunk),
+                        (row, reason) -> rejections.add(new RejectedRow(fileName, sheetName, row, reason)));
+            } finally {
+                pkg.revert();
+            }
+        } catch (CancellationException e) {
+            return;
+        } catch (IOException | OpenXML4JException | SAXException | RuntimeException e) {
+            rejections.add(new RejectedRow(fileName, sheetName, 0, "sheet can not be read: " + e.getMessage()));
+        }
+        try {
+            put(queue, END);
+        } catch (CancellationException e) {
+            // the writer is gone
+        }
+    }
+
+    private static void put(BlockingQueue<List<Slot>> queue, List<Slot> chunk) {
+        try {
+            queue.put(chunk);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new CancellationException("import cancelled");
+        }
+    }
+
+    private static final class Rejections {
+
+        private final AtomicLong count = new AtomicLong();
+        private final List<RejectedRow> rows = new ArrayList<>();
+
+        private void add(RejectedRow row) {
+            count.incrementAndGet();
+            synchronized (rows) {
+                if (rows.size() < REJECTED_ROWS_LIMIT) {
+                    rows.add(row);
+                }
+            }
+        }
+
+        private List<RejectedRow> getRows() {
+            synchronized (rows) {
+                return new ArrayList<>(rows);
+            }
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        parsePool.shutdownNow();
+    }
+
+    /**
+     * @param threads number of sheets parsed at once, also by one import
+     * @param queueSheets number of sheets of all imports waiting for the parse pool
+     * @param queueChunks number of parsed chunks of {@link #CHUNK_SIZE} slots waiting for the writer
+     */
+    @Autowired
+    public SlotImportService(SlotIngestService ingestService, SlotMetrics slotMetrics,
+                             @Value("${import.threads:4}") int threads,
+                             @Value("${import.queueSheets:64}") int queueSheets,
+                             @Value("${import.queueChunks:4}") int queueChunks) {
+        this.ingestService = ingestService;
+        this.slotMetrics = slotMetrics;
+        this.parsePool = new ThreadPoolExecutor(threads, threads, 0, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueSheets));
+        this.threads = threads;
+        this.queueChunks = queueChunks;
+    }
+}
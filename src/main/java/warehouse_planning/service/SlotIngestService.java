@@ -0,0 +1,372 @@
+package warehouse_planning.service;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.*;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import org.postgresql.PGConnection;
+import org.postgresql.copy.PGCopyOutputStream;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import warehouse_planning.algorithm.SlotBuffer;
+import warehouse_planning.config.SlotMetrics;
+import warehouse_planning.mapper.IndexedSlotMapper;
+import warehouse_planning.mapper.SlotBufferMapper;
+import warehouse_planning.model.ImportMode;
+import warehouse_planning.model.Slot;
+import warehouse_planning.parser.SlotCsvParser;
+
+/**
+ * Ingest of new and changed slots. New slots are fitted into the current plans of their warehouses, a warehouse
+ * whose plan drifted too far is planned again.
+ *
+ * @author agavrikov
+ */
+@Component
+public class SlotIngestService {
+
+    private static final int IMPORT_CHUNK_SIZE = 10_000;
+    private static final int COPY_BUFFER_SIZE = 64 * 1024;
+    private static final String COPY_SQL =
+        "COPY slot (id, guid, warehouse_id, date, time_from, time_to, conveyor_id) FROM STDIN WITH (FORMAT csv)";
+
+    private final NamedParameterJdbcTemplate jdbcTemplate;
+    private final SlotTransactions slotTransactions;
+    private final SlotPlanningService planningService;
+    private final ConveyorTimelineService timelineService;
+    private final SlotIds slotIds;
+    private final SlotCache slotCache;
+    private final SlotMetrics slotMetrics;
+
+    /**
+     * Adds one slot, a slot number that the warehouse already has is refused with a {@link DuplicateKeyException}.
+     */
+    public void save(String guid, long warehouseId, LocalDate date, LocalTime timeFrom, LocalTime timeTo) {
+        Slot slot = new Slot(slotIds.next(), guid, warehouseId, date, timeFrom, timeTo, null, LocalDateTime.now());
+        String sql =
+            "INSERT INTO slot (id, guid, warehouse_id, date, time_from, time_to, conveyor_id) " +
+            "SELECT :id, :guid, :warehouse_id, :date, :time_from, :time_to, " +
+            "       CAST(:conveyor_id AS integer) " +
+            " WHERE NOT EXISTS (SELECT 1 FROM slot WHERE warehouse_id = :warehouse_id AND guid = :guid)";
+        boolean[] drifted = {false};
+        slotTransactions.writeSlots(Collections.singletonList(slot), () -> {
+            drifted[0] = timelineService.assign(warehouseId, Collections.singletonList(slot));
+            int inserted = jdbcTemplate.update(sql, new MapSqlParameterSource()
+                    .addValue("id", slot.getId())
+                    .addValue("guid", guid)
+                    .addValue("warehouse_id", warehouseId)
+                    .addValue("date", date)
+                    .addValue("time_from", timeFrom)
+                    .addValue("time_to", timeTo)
+                    .addValue("conveyor_id", slot.getConveyorId()));
+            if (inserted == 0) {
+                throw duplicateSlot(guid, warehouseId);
+            }
+            return null;
+        });
+        slotCache.invalidate(warehouseId);
+        if (drifted[0]) {
+            planningService.planning(warehouseId);
+        }
+    }
+
+    public void saveBatch(List<Slot> slots) {
+        long start = System.nanoTime();
+        String sql = "INSERT INTO slot (id, guid, warehouse_id, date, time_from, time_to, conveyor_id) " +
+                     "VALUES (:id, :guid, :warehouseId, :date, :timeFrom, :timeTo, :conveyorId)";
+        long[] ids = slotIds.next(slots.size());
+        Set<Long> drifted = slotTransactions.writeSlots(slots, () -> {
+            checkNumbers(slots);
+            Set<Long> warehouses = assignConveyors(slots);
+            List<Map<String, Object>> batchValues = new ArrayList<>(slots.size());
+            for (int i = 0; i < slots.size(); ++i) {
+                Slot slot = slots.get(i);
+                batchValues.add(
+                    new MapSqlParameterSource("id", ids[i])
+                        .addValue("guid", slot.getGuid())
+                        .addValue("warehouseId", slot.getWarehouseId())
+                        .addValue("date", slot.getDate())
+                        .addValue("timeFrom", slot.getTimeFrom())
+                        .addValue("timeTo", slot.getTimeTo())
+                        .addValue("conveyorId", slot.getConveyorId())
+                        .getValues()
+                );
+            }
+            jdbcTemplate.batchUpdate(sql, batchValues.toArray(new Map[slots.size()]));
+            return warehouses;
+        });
+        invalidate(slots);
+        slotMetrics.getSaveBatch().record(start, slots.size());
+        drifted.forEach(planningService::planning);
+    }
+
+    /**
+     * Inserts slots with {@code COPY slot FROM STDIN}, ids are taken from {@link SlotIds} beforehand. Slot
+     * numbers are only checked against the warehouse, not merged, see {@link #checkNumbers}.
+     */
+    public void copyBatch(List<Slot> slots) {
+        long start = System.nanoTime();
+        long[] ids = slotIds.next(slots.size());
+        Set<Long> drifted = slotTransactions.writeSlots(slots, () -> {
+            checkNumbers(slots);
+            Set<Long> warehouses = assignConveyors(slots);
+            jdbcTemplate.getJdbcTemplate().execute((ConnectionCallback<Void>) connection -> {
+                PGConnection pgConnection = connection.unwrap(PGConnection.class);
+                try (Writer writer = new BufferedWriter(new OutputStreamWriter(
+                        new PGCopyOutputStream(pgConnection, COPY_SQL, COPY_BUFFER_SIZE), StandardCharsets.UTF_8),
+                        COPY_BUFFER_SIZE)) {
+                    for (int i = 0; i < slots.size(); ++i) {
+                        Slot slot = slots.get(i);
+                        writer.write(Long.toString(ids[i]));
+                        writer.write(',');
+                        writeCopyRow(writer, slot);
+                        writer.write(',');
+                        if (!slot.isFree()) {
+                            writer.write(Integer.toString(slot.getConveyorId()));
+                        }
+                        writer.write('\n');
+                    }
+                } catch (IOException e) {
+                    throw copyFailed("slot", e);
+                }
+                return null;
+            });
+            return warehouses;
+        });
+        invalidate(slots);
+        slotMetrics.getCopyBatch().record(start, slots.size());
+        drifted.forEach(planningService::planning);
+    }
+
+    /**
+     * The driver reports a rejected COPY as an I/O error on close, its SQL cause is rethrown to be translated like
+     * the one of any other statement, e.g. to a {@link org.springframework.dao.DuplicateKeyException}.
+     */
+    private static SQLException copyFailed(String table, IOException e) {
+        if (e.getCause() instanceof SQLException) {
+            return (SQLException) e.getCause();
+        }
+        return new SQLException("COPY into " + table + " failed", e);
+    }
+
+    /**
+     * Writes {@code "guid",warehouse_id,date,time_from,time_to} of a COPY row in CSV format.
+     */
+    private static void writeCopyRow(Writer writer, Slot slot) throws IOException {
+        writer.write('"');
+        writer.write(slot.getGuid().replace("\"", "\"\""));
+        writer.write("\",");
+        writer.write(Long.toString(slot.getWarehouseId()));
+        writer.write(',');
+        writer.write(slot.getDate().toString());
+        writer.write(',');
+        writer.write(slot.getTimeFrom().toString());
+        writer.write(',');
+        writer.write(slot.getTimeTo().toString());
+    }
+
+    /**
+     * Inserts new slots of the warehouse and updates the times of known ones, matched on the slot number; rows
+     * with the times the slot already has are not written. The batch goes with COPY into a temporary table, the
+     * changed rows are merged by one statement and come back with their previous times and conveyors. Changed
+     * slots lose their conveyor and are fitted into the current plan like new ones. The slot table is partitioned
+     * by date and can not enforce unique numbers, the advisory lock of the warehouse keeps them unique. The
+     * version of the warehouse only changes if slots do, re-importing the same rows does not restart a running
+     * planning.
+     *
+     * @param slots slots of the warehouse with distinct numbers
+     * @return number of inserted and updated slots
+     */
+    public int upsertBatch(long warehouseId, List<Slot> slots) {
+        String createSql =
+            "CREATE TEMP TABLE slot_import (id bigint, guid text, warehouse_id bigint, date date, time_from time, " +
+            "                               time_to time) " +
+            "    ON COMMIT DROP";
+        String upsertSql =
+            "WITH changed AS ( " +
+            "    SELECT i.id, i.guid, i.date, i.time_from, i.time_to, s.id AS previous_id, s.date AS previous_date, " +
+            "           s.conveyor_id AS previous_conveyor_id, " +
+            "           s.starts_at AS previous_starts_at, s.ends_at AS previous_ends_at " +
+            "      FROM slot_import i " +
+            "      LEFT JOIN slot s ON s.warehouse_id = :warehouse_id AND s.guid = i.guid " +
+            "     WHERE s.id IS NULL " +
+            "        OR (s.date, s.time_from, s.time_to) IS DISTINCT FROM (i.date, i.time_from, i.time_to) " +
+            "), updated AS ( " +
+            "    UPDATE slot s " +
+            "       SET date = c.date, time_from = c.time_from, time_to = c.time_to, conveyor_id = NULL " +
+            "      FROM changed c " +
+            "     WHERE s.warehouse_id = :warehouse_id AND s.date = c.previous_date AND s.id = c.previous_id " +
+            "    RETURNING s.id, s.guid, s.warehouse_id, s.date, s.time_from, s.time_to, s.conveyor_id, " +
+            "              s.creation_time " +
+            "), inserted AS ( " +
+            "    INSERT INTO slot (id, guid, warehouse_id, date, time_from, time_to) " +
+            "    SELECT id, guid, :warehouse_id, date, time_from, time_to " +
+            "      FROM changed " +
+            "     WHERE previous_id IS NULL " +
+            "    RETURNING id, guid, warehouse_id, date, time_from, time_to, conveyor_id, creation_time " +
+            ") " +
+            "SELECT u.*, c.previous_conveyor_id, c.previous_starts_at, c.previous_ends_at " +
+            "  FROM updated u " +
+            "  JOIN changed c ON c.previous_id = u.id " +
+            " UNION ALL " +
+            "SELECT i.*, NULL, NULL, NULL " +
+            "  FROM inserted i";
+        String copySql =
+            "COPY slot_import (id, guid, warehouse_id, date, time_from, time_to) FROM STDIN WITH (FORMAT csv)";
+        if (slots.isEmpty()) {
+            return 0;
+        }
+        long start = System.nanoTime();
+        // ids of the rows that turn out to be updates are not used
+        long[] ids = slotIds.next(slots.size());
+        List<Slot> changed = new ArrayList<>();
+        SlotBuffer previous = new SlotBuffer(16);
+        boolean[] drifted = {false};
+        slotTransactions.lockedWrite(slots, () -> {
+            jdbcTemplate.getJdbcTemplate().execute(createSql);
+            jdbcTemplate.getJdbcTemplate().execute((ConnectionCallback<Void>) connection -> {
+                PGConnection pgConnection = connection.unwrap(PGConnection.class);
+                try (Writer writer = new BufferedWriter(new OutputStreamWriter(
+                        new PGCopyOutputStream(pgConnection, copySql, COPY_BUFFER_SIZE), StandardCharsets.UTF_8),
+                        COPY_BUFFER_SIZE)) {
+                    for (int i = 0; i < slots.size(); ++i) {
+                        writer.write(Long.toString(ids[i]));
+                        writer.write(',');
+                        writeCopyRow(writer, slots.get(i));
+                        writer.write('\n');
+                    }
+                } catch (IOException e) {
+                    throw copyFailed("slot_import", e);
+                }
+                return null;
+            });
+            IndexedSlotMapper mapper = new IndexedSlotMapper();
+            jdbcTemplate.query(upsertSql, new MapSqlParameterSource("warehouse_id", warehouseId),
+                    (RowCallbackHandler) rs -> {
+                        Slot slot = mapper.mapRow(rs, changed.size());
+                        changed.add(slot);
+                        LocalDateTime startsAt = rs.getObject("previous_starts_at", LocalDateTime.class);
+                        LocalDateTime endsAt = rs.getObject("previous_ends_at", LocalDateTime.class);
+                        if (startsAt != null) {
+                            previous.add(slot.getId(), SlotBufferMapper.toMinute(startsAt),
+                                    SlotBufferMapper.toMinute(endsAt), rs.getInt("previous_conveyor_id"));
+                        }
+                    });
+            if (!changed.isEmpty()) {
+                slotTransactions.incrementVersion(warehouseId);
+                timelineService.release(warehouseId, previous);
+                drifted[0] = timelineService.assign(warehouseId, changed);
+                slotTransactions.updateConveyors(warehouseId, changed.stream()
+                        .filter(slot -> !slot.isFree())
+                        .collect(Collectors.toList()));
+            }
+            return null;
+        });
+        if (!changed.isEmpty()) {
+            slotCache.invalidate(warehouseId);
+            if (drifted[0]) {
+                planningService.planning(warehouseId);
+            }
+        }
+        slotMetrics.getUpsertBatch().record(start, slots.size());
+        return changed.size();
+    }
+
+    /**
+     * Fits new slots into the current plans of their warehouses.
+     *
+     * @return warehouses that need a full re-planning
+     */
+    private Set<Long> assignConveyors(List<Slot> slots) {
+        Set<Long> drifted = new HashSet<>();
+        slots.stream()
+            .collect(Collectors.groupingBy(Slot::getWarehouseId))
+            .forEach((warehouseId, warehouseSlots) -> {
+                if (timelineService.assign(warehouseId, warehouseSlots)) {
+                    drifted.add(warehouseId);
+                }
+            });
+        return drifted;
+    }
+
+    private void invalidate(List<Slot> slots) {
+        SlotTransactions.warehouseIds(slots).forEach(slotCache::invalidate);
+    }
+
+    public void bulk(long warehouseId, InputStream csv, ImportMode mode) throws IOException {
+        if (mode == ImportMode.APPEND) {
+            SlotCsvParser.parse(csv, warehouseId, IMPORT_CHUNK_SIZE, this::copyBatch);
+            return;
+        }
+        Set<String> guids = new HashSet<>();
+        SlotCsvParser.parse(csv, warehouseId, IMPORT_CHUNK_SIZE, slots -> upsertBatch(warehouseId, slots.stream()
+                .filter(slot -> guids.add(slot.getGuid()))
+                .collect(Collectors.toList())));
+    }
+
+    /**
+     * Refuses slot numbers that repeat in the batch or that their warehouse already has, called under the locks of
+     * the warehouses: the partitioned slot table can not keep them unique.
+     */
+    private void checkNumbers(List<Slot> slots) {
+        String sql = "SELECT guid FROM slot WHERE warehouse_id = ? AND guid = ANY(?) LIMIT 1";
+        Map<Long, Set<String>> guids = new HashMap<>();
+        for (Slot slot : slots) {
+            if (!guids.computeIfAbsent(slot.getWarehouseId(), id -> new HashSet<>()).add(slot.getGuid())) {
+                throw duplicateSlot(slot.getGuid(), slot.getWarehouseId());
+            }
+        }
+        guids.forEach((warehouseId, warehouseGuids) -> {
+            String guid = jdbcTemplate.getJdbcTemplate().execute((ConnectionCallback<String>) connection -> {
+                try (PreparedStatement statement = connection.prepareStatement(sql)) {
+                    statement.setLong(1, warehouseId);
+                    statement.setArray(2, connection.createArrayOf("text", warehouseGuids.toArray()));
+                    try (ResultSet rs = statement.executeQuery()) {
+                        return rs.next() ? rs.getString(1) : null;
+                    }
+                }
+            });
+            if (guid != null) {
+                throw duplicateSlot(guid, warehouseId);
+            }
+        });
+    }
+
+    private static DuplicateKeyException duplicateSlot(String guid, long warehouseId) {
+        return new DuplicateKeyException("slot " + guid + " already exists in warehouse " + warehouseId);
+    }
+
+    @Autowired
+    public SlotIngestService(NamedParameterJdbcTemplate jdbcTemplate, SlotTransactions slotTransactions,
+                             SlotPlanningService planningService, ConveyorTimelineService timelineService,
+                             SlotIds slotIds, SlotCache slotCache, SlotMetrics slotMetrics) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.slotTransactions = slotTransactions;
+        this.planningService = planningService;
+        this.timelineService = timelineService;
+        this.slotIds = slotIds;
+        this.slotCache = slotCache;
+        this.slotMetrics = slotMetrics;
+    }
+}
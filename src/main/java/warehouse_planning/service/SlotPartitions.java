@@ -0,0 +1,301 @@
+package warehouse_planning.service;
+
+import java.time.YearMonth;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.jdbc.datasource.SingleConnectionDataSource;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import warehouse_planning.model.Slot;
+
+/**
+ * Monthly partitions of the slot table, see {@code db/migration/006_slot_partition_by_month.sql}. A month is a
+ * partition {@code slot_y2021m03} of {@code slot}; with {@code slots.partitions.byWarehouse} it is partitioned
+ * further into {@code slot_y2021m03_w12} per warehouse, so the slots of a warehouse are dropped as tables too.
+ * <p>
+ * Partitions are created before slots are written, as empty tables that are then attached: attaching takes a
+ * SHARE UPDATE EXCLUSIVE lock on the parent and does not wait for running queries, e.g. streamed exports, as
+ * {@code CREATE TABLE ... PARTITION OF} would. They are dropped after a concurrent detach for the same reason.
+ *
+ * @author agavrikov
+ */
+@Component
+public class SlotPartitions {
+
+    private static final DateTimeFormatter MONTH_NAME = DateTimeFormatter.ofPattern("'slot_y'yyyy'm'MM");
+
+    private final NamedParameterJdbcTemplate jdbcTemplate;
+    private final ConveyorTimelineService timelineService;
+    private final SlotCache slotCache;
+    private final boolean byWarehouse;
+    private final int retentionMonths;
+    private final boolean retentionDrop;
+
+    /** existing months, {@code true} if the month is partitioned by warehouse */
+    private final Map<YearMonth, Boolean> months = new ConcurrentHashMap<>();
+    private final Set<String> warehousePartitions = ConcurrentHashMap.newKeySet();
+    private volatile boolean loaded;
+
+    /**
+     * Creates the missing partitions of the slots.
+     */
+    public void ensure(List<Slot> slots) {
+        load();
+        YearMonth lastMonth = null;
+        long lastWarehouseId = 0;
+        for (Slot slot : slots) {
+            YearMonth month = YearMonth.from(slot.getDate());
+            if (month.equals(lastMonth) && slot.getWarehouseId() == lastWarehouseId) {
+                continue;
+            }
+            lastMonth = month;
+            lastWarehouseId = slot.getWarehouseId();
+            if (!exists(month, lastWarehouseId)) {
+                create(month, lastWarehouseId);
+            }
+        }
+    }
+
+    /**
+     * @return {@code true} if the partitions of all the slots exist. Writers check it again under the locks of the
+     * warehouses, their partitions may have been dropped after {@link #ensure}.
+     */
+    public boolean exist(List<Slot> slots) {
+        load();
+        for (Slot slot : slots) {
+            if (!exists(YearMonth.from(slot.getDate()), slot.getWarehouseId())) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private boolean exists(YearMonth month, long warehouseId) {
+        Boolean partitioned = months.get(month);
+        return partitioned != null && (!partitioned || warehousePartitions.contains(name(month, warehouseId)));
+    }
+
+    private synchronized void create(YearMonth month, long warehouseId) {
+        if (!months.containsKey(month)) {
+            String sql =
+                "CREATE TABLE " + name(month) +
+                "    (LIKE slot INCLUDING DEFAULTS INCLUDING GENERATED INCLUDING CONSTRAINTS)" +
+                (byWarehouse ? " PARTITION BY LIST (warehouse_id)" : "");
+            jdbcTemplate.getJdbcTemplate().execute(sql);
+            jdbcTemplate.getJdbcTemplate().execute("ALTER TABLE slot ATTACH PARTITION " + name(month) +
+                    " FOR VALUES FROM ('" + month.atDay(1) + "') TO ('" + month.plusMonths(1).atDay(1) + "')");
+            months.put(month, byWarehouse);
+        }
+        if (months.get(month) && !warehousePartitions.contains(name(month, warehouseId))) {
+            String sql =
+                "CREATE TABLE " + name(month, warehouseId) +
+                "    (LIKE slot INCLUDING DEFAULTS INCLUDING GENERATED INCLUDING CONSTRAINTS)";
+            jdbcTemplate.getJdbcTemplate().execute(sql);
+            jdbcTemplate.getJdbcTemplate().execute("ALTER TABLE " + name(month) +
+                    " ATTACH PARTITION " + name(month, warehouseId) + " FOR VALUES IN (" + warehouseId + ")");
+            warehousePartitions.add(name(month, warehouseId));
+        }
+    }
+
+    /**
+     * Drops the slots of the warehouse: its partitions in the months that are partitioned by warehouse, the rows
+     * of the other months. Runs under the lock of the warehouse, see {@link #withWarehouseLocks}.
+     */
+    public void dropWarehouse(long warehouseId) {
+        dropWarehouse(warehouseId, session -> { });
+    }
+
+    /**
+     * Same as {@link #dropWarehouse(long)}, {@code andThen} runs on the same session while the lock is still held,
+     * e.g. to delete the warehouse.
+     */
+    public void dropWarehouse(long warehouseId, Consumer<JdbcTemplate> andThen) {
+        load();
+        withWarehouseLocks(Collections.singleton(warehouseId), session -> {
+            synchronized (this) {
+                boolean monthsWithRows = false;
+                for (Map.Entry<YearMonth, Boolean> month : months.entrySet()) {
+                    String name = name(month.getKey(), warehouseId);
+                    if (!month.getValue()) {
+                        monthsWithRows = true;
+                    } else if (warehousePartitions.contains(name)) {
+                        drop(session, name(month.getKey()), name, true);
+                        warehousePartitions.remove(name);
+                    }
+                }
+                if (monthsWithRows) {
+                    session.update("DELETE FROM slot WHERE warehouse_id = ?", warehouseId);
+                }
+            }
+            andThen.accept(session);
+            return null;
+        });
+    }
+
+    /**
+     * Detaches the months before {@code month}, they are dropped too if {@code drop} is set, otherwise kept as
+     * tables with the suffix {@code _detached}. Runs under the locks of all warehouses, a month that is not
+     * partitioned by warehouse may hold slots of any of them.
+     *
+     * @return the detached months
+     */
+    public List<YearMonth> detachBefore(YearMonth month, boolean drop) {
+        load();
+        if (months.keySet().stream().noneMatch(existing -> existing.isBefore(month))) {
+            return Collections.emptyList();
+        }
+        Set<Long> warehouseIds = new HashSet<>(jdbcTemplate.getJdbcTemplate().queryForList(
+                "SELECT id FROM warehouse", Long.class));
+        warehousePartitions.forEach(name -> warehouseIds.add(Long.parseLong(name.substring(name.indexOf("_w") + 2))));
+        return withWarehouseLocks(warehouseIds, session -> {
+            synchronized (this) {
+                List<YearMonth> detached = new ArrayList<>();
+                for (YearMonth existing : new ArrayList<>(months.keySet())) {
+                    if (existing.isBefore(month)) {
+                        drop(session, "slot", name(existing), drop);
+                        months.remove(existing);
+                        warehousePartitions.removeIf(name -> name.startsWith(name(existing) + "_w"));
+                        detached.add(existing);
+                    }
+                }
+                return detached;
+            }
+        });
+    }
+
+    /**
+     * Retention job: months older than {@code slots.retention.months} before the current one are detached or
+     * dropped, 0 keeps all. Dropped slots leave the remaining plans valid, timelines are read again.
+     */
+    @Scheduled(cron = "${slots.retention.cron:0 0 3 * * *}")
+    public void retention() {
+        if (retentionMonths <= 0) {
+            return;
+        }
+        if (!detachBefore(YearMonth.now().minusMonths(retentionMonths), retentionDrop).isEmpty()) {
+            String sql = "SELECT id FROM warehouse";
+            jdbcTemplate.queryForList(sql, new MapSqlParameterSource(), Long.class).forEach(warehouseId -> {
+                timelineService.invalidate(warehouseId);
+                slotCache.invalidate(warehouseId);
+            });
+        }
+    }
+
+    /**
+     * Runs partition DDL on one connection that holds the advisory locks of the warehouses for the session, taken
+     * in id order: {@code DETACH ... CONCURRENTLY} can not run in a transaction, which the
+     * {@code pg_advisory_xact_lock} of the writers needs. The versions of the warehouses are incremented before the
+     * locks are released, so a planning that read the slots before the DDL fails its version check, and a writer
+     * that passed {@link #ensure} before finds the partitions gone with {@link #exist}.
+     */
+    private <T> T withWarehouseLocks(Collection<Long> warehouseIds, Function<JdbcTemplate, T> ddl) {
+        List<Long> sorted = new ArrayList<>(warehouseIds);
+        Collections.sort(sorted);
+        return jdbcTemplate.getJdbcTemplate().execute((ConnectionCallback<T>) connection -> {
+            JdbcTemplate session = new JdbcTemplate(new SingleConnectionDataSource(connection, true));
+            try {
+                for (long warehouseId : sorted) {
+                    session.queryForObject("SELECT 1 FROM pg_advisory_lock(?)", Integer.class, warehouseId);
+                }
+                try {
+                    return ddl.apply(session);
+                } finally {
+                    for (long warehouseId : sorted) {
+                        session.update("UPDATE warehouse SET version = version + 1, modified_time = clock_timestamp()"
+                                + " WHERE id = ?", warehouseId);
+                    }
+                }
+            } finally {
+                session.execute("SELECT pg_advisory_unlock_all()");
+            }
+        });
+    }
+
+    private static void drop(JdbcTemplate session, String parent, String partition, boolean drop) {
+        session.execute("ALTER TABLE " + parent + " DETACH PARTITION " + partition + " CONCURRENTLY");
+        session.execute(drop
+                ? "DROP TABLE " + partition
+                : "ALTER TABLE " + partition + " RENAME TO " + partition + "_detached");
+    }
+
+    /**
+     * Reads the existing partitions once, later ones are only created and dropped here.
+     */
+    private void load() {
+        if (loaded) {
+            return;
+        }
+        synchronized (this) {
+            if (loaded) {
+                return;
+            }
+            String partitionedSql = "SELECT relkind = 'p' FROM pg_class WHERE oid = 'slot'::regclass";
+            if (!jdbcTemplate.getJdbcTemplate().queryForObject(partitionedSql, Boolean.class)) {
+                throw new IllegalStateException(
+                        "Table slot is not partitioned, apply db/migration/006_slot_partition_by_month.sql");
+            }
+            String sql =
+                "WITH RECURSIVE part (oid, level) AS ( " +
+                "    SELECT inhrelid, 1 FROM pg_inherits WHERE inhparent = 'slot'::regclass " +
+                "     UNION ALL " +
+                "    SELECT i.inhrelid, p.level + 1 FROM pg_inherits i JOIN part p ON i.inhparent = p.oid " +
+                ") " +
+                "SELECT c.relname, c.relkind = 'p' AS partitioned, p.level " +
+                "  FROM part p " +
+                "  JOIN pg_class c ON c.oid = p.oid";
+            jdbcTemplate.getJdbcTemplate().query(sql, (RowCallbackHandler) rs -> {
+                if (rs.getInt("level") == 1) {
+                    months.put(YearMonth.parse(rs.getString("relname"), MONTH_NAME), rs.getBoolean("partitioned"));
+                } else {
+                    warehousePartitions.add(rs.getString("relname"));
+                }
+            });
+            loaded = true;
+        }
+    }
+
+    private static String name(YearMonth month) {
+        return MONTH_NAME.format(month);
+    }
+
+    private static String name(YearMonth month, long warehouseId) {
+        return name(month) + "_w" + warehouseId;
+    }
+
+    /**
+     * @param byWarehouse new months are partitioned by warehouse
+     * @param retentionMonths number of past months kept by the retention job, 0 keeps all
+     * @param retentionDrop the retention job drops the months it detaches
+     */
+    @Autowired
+    public SlotPartitions(NamedParameterJdbcTemplate jdbcTemplate, ConveyorTimelineService timelineService,
+                          SlotCache slotCache,
+                          @Value("${slots.partitions.byWarehouse:true}") boolean byWarehouse,
+                          @Value("${slots.retention.months:0}") int retentionMonths,
+                          @Value("${slots.retention.drop:true}") boolean retentionDrop) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.timelineService = timelineService;
+        this.slotCache = slotCache;
+        this.byWarehouse = byWarehouse;
+        this.retentionMonths = retentionMonths;
+        this.retentionDrop = retentionDrop;
+    }
+}
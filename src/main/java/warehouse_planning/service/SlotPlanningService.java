@@ -0,0 +1,239 @@
+package warehouse_planning.service;
+
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import warehouse_planning.algorithm.CapacityPlan;
+import warehouse_planning.algorithm.CapacityPlanning;
+import warehouse_planning.algorithm.ParallelPlanning;
+import warehouse_planning.algorithm.PlanningChecker;
+import warehouse_planning.algorithm.SlotBuffer;
+import warehouse_planning.config.SlotMetrics;
+import warehouse_planning.model.CapacityReport;
+import warehouse_planning.model.PlanningJob;
+
+/**
+ * Plannings of a warehouse: its slots are read, planned on {@code planningPool} and their conveyors written back.
+ *
+ * @author agavrikov
+ */
+@Component
+public class SlotPlanningService {
+
+    private final SlotService slotService;
+    private final SlotTransactions slotTransactions;
+    private final ConveyorTimelineService timelineService;
+    private final SlotCache slotCache;
+    private final SlotMetrics slotMetrics;
+    private final TransactionTemplate transactionTemplate;
+    private final TransactionTemplate snapshotTemplate;
+    private final ForkJoinPool planningPool;
+    private final int planningAttempts;
+    /** monitors of the warehouses being planned, an entry goes away once no planning holds it */
+    private final Cache<Long, Object> planningLocks = Caffeine.newBuilder().weakValues().build();
+
+    public void planning(long warehouseId) {
+        planning(warehouseId, new PlanningJob(warehouseId));
+    }
+
+    /**
+     * Plans the warehouse and reports progress to the job. Planning runs of one warehouse never overlap.
+     * <p>
+     * The slots are read in one snapshot with the version of the warehouse and planned without a lock. The
+     * conveyors are written back under the lock of the warehouse only if the version did not change, otherwise a
+     * writer changed the slots meanwhile and the planning starts again, up to {@code planning.attempts} times.
+     * Other warehouses are read, planned and written at the same time.
+     */
+    public void planning(long warehouseId, PlanningJob job) {
+        synchronized (planningLocks.get(warehouseId, id -> new Object())) {
+            long planningStart = System.nanoTime();
+            for (int attempt = 1; ; ++attempt) {
+                job.setAttemptCount(attempt);
+                long start = System.nanoTime();
+                PlanningSnapshot snapshot = readSnapshot(warehouseId);
+                SlotBuffer buffer = snapshot.buffer;
+                job.setSlotCount(buffer.size());
+                job.phase("load", start);
+                slotMetrics.getPlanningLoad().record(start, buffer.size());
+
+                start = System.nanoTime();
+                int[] order = planningPool.submit(buffer::parallelSort).join();
+                int conveyorCount = ParallelPlanning.planning(buffer, order, planningPool);
+                if (!PlanningChecker.check(buffer, order, conveyorCount)) {
+                    throw new IllegalStateException("Conveyor overlap in planning of warehouse " + warehouseId);
+                }
+                job.setPlannedCount(buffer.size());
+                job.setConveyorCount(conveyorCount);
+                job.phase("plan", start);
+                slotMetrics.getPlanningPlan().record(start, buffer.size());
+                slotMetrics.recordConveyors(conveyorCount);
+
+                start = System.nanoTime();
+                int changedCount;
+                try {
+                    changedCount = writePlan(warehouseId, snapshot, conveyorCount);
+                } catch (OptimisticLockingFailureException e) {
+                    retryOrThrow(attempt, e);
+                    continue;
+                }
+                job.setChangedCount(changedCount);
+                job.phase("write", start);
+                slotMetrics.getPlanningWrite().record(start, changedCount);
+                slotMetrics.getPlanning().record(planningStart, buffer.size());
+                return;
+            }
+        }
+    }
+
+    /**
+     * Plans the warehouse on {@code conveyorCapacity} conveyors, the slots that do not fit are left free. Slots
+     * are read and written as by {@link #planning(long, PlanningJob)}, progress is reported to the job.
+     */
+    public CapacityReport planning(long warehouseId, int conveyorCapacity, CapacityPlanning.Mode mode,
+                                   PlanningJob job) {
+        synchronized (planningLocks.get(warehouseId, id -> new Object())) {
+            long planningStart = System.nanoTime();
+            for (int attempt = 1; ; ++attempt) {
+                job.setAttemptCount(attempt);
+                long start = System.nanoTime();
+                PlanningSnapshot snapshot = readSnapshot(warehouseId);
+                SlotBuffer buffer = snapshot.buffer;
+                job.setSlotCount(buffer.size());
+                job.phase("load", start);
+
+                start = System.nanoTime();
+                int[] order = planningPool.submit(buffer::parallelSort).join();
+                CapacityPlan plan = CapacityPlanning.planning(buffer, order, conveyorCapacity, mode);
+                if (!PlanningChecker.check(buffer, order, plan.getConveyorCount(), plan.getRejected().length)) {
+                    throw new IllegalStateException("Conveyor overlap in planning of warehouse " + warehouseId);
+                }
+                job.setPlannedCount(buffer.size() - plan.getRejected().length);
+                job.setConveyorCount(plan.getConveyorCount());
+                job.phase("plan", start);
+
+                start = System.nanoTime();
+                int changedCount;
+                try {
+                    changedCount = writePlan(warehouseId, snapshot, plan.getConveyorCount());
+                } catch (OptimisticLockingFailureException e) {
+                    retryOrThrow(attempt, e);
+                    continue;
+                }
+                job.setChangedCount(changedCount);
+                job.phase("write", start);
+                slotMetrics.getPlanning().record(planningStart, buffer.size());
+
+                long[] rejectedIds = new long[plan.getRejected().length];
+                for (int i = 0; i < rejectedIds.length; ++i) {
+                    rejectedIds[i] = buffer.getId(plan.getRejected()[i]);
+                }
+                List<LocalDateTime> peakTimes = new ArrayList<>(plan.getPeakMinutes().length);
+                for (long minute : plan.getPeakMinutes()) {
+                    peakTimes.add(LocalDateTime.ofEpochSecond(minute * 60, 0, ZoneOffset.UTC));
+                }
+                return new CapacityReport(warehouseId, conveyorCapacity, mode.name(), buffer.size(),
+                        plan.getConveyorCount(), rejectedIds, plan.getPeakOverlap(), peakTimes);
+            }
+        }
+    }
+
+    /**
+     * Reads the version and the slots of the warehouse in one repeatable read transaction, so the slots are the
+     * ones of the version even while writers commit.
+     */
+    private PlanningSnapshot readSnapshot(long warehouseId) {
+        return snapshotTemplate.execute(status -> {
+            long version = slotTransactions.getVersion(warehouseId);
+            return new PlanningSnapshot(version, slotService.getSlotBuffer(warehouseId));
+        });
+    }
+
+    /**
+     * Writes the conveyors of a planning and makes it the timeline of the warehouse, under the lock of the
+     * warehouse.
+     *
+     * @return number of changed slots
+     * @throws OptimisticLockingFailureException if the slots changed since the snapshot was read
+     */
+    private int writePlan(long warehouseId, PlanningSnapshot snapshot, int conveyorCount) {
+        int changedCount;
+        try {
+            changedCount = transactionTemplate.execute(status -> {
+                slotTransactions.lockWarehouse(warehouseId);
+                if (slotTransactions.getVersion(warehouseId) != snapshot.version) {
+                    throw new OptimisticLockingFailureException(
+                            "Slots of warehouse " + warehouseId + " changed during planning");
+                }
+                int count = slotTransactions.updateConveyors(warehouseId, snapshot.buffer, snapshot.previous);
+                if (count > 0) {
+                    slotTransactions.incrementVersion(warehouseId);
+                }
+                timelineService.reset(warehouseId, snapshot.buffer, conveyorCount);
+                return count;
+            });
+        } catch (RuntimeException e) {
+            timelineService.invalidate(warehouseId);
+            throw e;
+        }
+        if (changedCount > 0) {
+            slotCache.invalidate(warehouseId);
+        }
+        return changedCount;
+    }
+
+    private void retryOrThrow(int attempt, OptimisticLockingFailureException e) {
+        slotMetrics.recordPlanningConflict();
+        if (attempt >= planningAttempts) {
+            throw e;
+        }
+    }
+
+    /**
+     * Slots of a warehouse as read for a planning, with their conveyors before it.
+     */
+    private static class PlanningSnapshot {
+        private final long version;
+        private final SlotBuffer buffer;
+        private final int[] previous;
+
+        private PlanningSnapshot(long version, SlotBuffer buffer) {
+            this.version = version;
+            this.buffer = buffer;
+            this.previous = buffer.copyConveyors();
+        }
+    }
+
+    /**
+     * @param planningAttempts number of times a planning is made before a concurrent change of the slots fails it
+     */
+    @Autowired
+    public SlotPlanningService(SlotService slotService, SlotTransactions slotTransactions,
+                               ConveyorTimelineService timelineService, SlotCache slotCache,
+                               SlotMetrics slotMetrics, ForkJoinPool planningPool,
+                               TransactionTemplate transactionTemplate,
+                               @Value("${planning.attempts:3}") int planningAttempts) {
+        this.slotService = slotService;
+        this.slotTransactions = slotTransactions;
+        this.timelineService = timelineService;
+        this.slotCache = slotCache;
+        this.slotMetrics = slotMetrics;
+        this.transactionTemplate = transactionTemplate;
+        this.snapshotTemplate = new TransactionTemplate(transactionTemplate.getTransactionManager());
+        snapshotTemplate.setIsolationLevel(TransactionDefinition.ISOLATION_REPEATABLE_READ);
+        snapshotTemplate.setReadOnly(true);
+        this.planningPool = planningPool;
+        this.planningAttempts = planningAttempts;
+    }
+}
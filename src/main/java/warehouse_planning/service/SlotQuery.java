@@ -0,0 +1,110 @@
+package warehouse_planning.service;
+
+import java.time.LocalDateTime;
+
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.util.StringUtils;
+
+import warehouse_planning.model.SlotCursor;
+
+/**
+ * Builds the {@code WHERE} clause of slot queries with only the predicates that are present, all of them on plain
+ * columns, so PostgreSQL can use the {@code (warehouse_id, conveyor_id, starts_at, ends_at, id)} and
+ * {@code (warehouse_id, guid)} indexes. Time bounds are repeated on {@code date}, the partition key, so only the
+ * months in range are scanned.
+ *
+ * @author agavrikov
+ */
+class SlotQuery {
+
+    private final StringBuilder where = new StringBuilder(" WHERE warehouse_id = :warehouse_id");
+    private final MapSqlParameterSource params = new MapSqlParameterSource();
+
+    SlotQuery(long warehouseId) {
+        params.addValue("warehouse_id", warehouseId);
+    }
+
+    SlotQuery guid(String guid) {
+        if (!StringUtils.isEmpty(guid)) {
+            where.append(" AND guid = :guid");
+            params.addValue("guid", guid);
+        }
+        return this;
+    }
+
+    SlotQuery conveyor(Integer conveyorId) {
+        if (conveyorId != null) {
+            where.append(" AND conveyor_id = :conveyor_id");
+            params.addValue("conveyor_id", conveyorId);
+        }
+        return this;
+    }
+
+    /**
+     * Slots starting at or after the time.
+     */
+    SlotQuery from(LocalDateTime timeFrom) {
+        if (timeFrom != null) {
+            where.append(" AND starts_at >= :time_from AND date >= :date_from");
+            params.addValue("time_from", timeFrom)
+                    .addValue("date_from", timeFrom.toLocalDate());
+        }
+        return this;
+    }
+
+    /**
+     * Slots ending at or before the time.
+     */
+    SlotQuery to(LocalDateTime timeTo) {
+        if (timeTo != null) {
+            where.append(" AND ends_at <= :time_to AND date <= :date_to");
+            params.addValue("time_to", timeTo)
+                    .addValue("date_to", timeTo.toLocalDate());
+        }
+        return this;
+    }
+
+    /**
+     * Slots after the cursor in the order {@code (conveyor_id, starts_at, ends_at, id)}, free slots go last.
+     */
+    SlotQuery after(SlotCursor cursor) {
+        return seek(cursor, false);
+    }
+
+    /**
+     * Slots before the cursor in the order {@code (conveyor_id, starts_at, ends_at, id)}, free slots go last.
+     */
+    SlotQuery before(SlotCursor cursor) {
+        return seek(cursor, true);
+    }
+
+    private SlotQuery seek(SlotCursor cursor, boolean backward) {
+        if (cursor == null) {
+            return this;
+        }
+        String row = "(starts_at, ends_at, id) " + (backward ? "<" : ">") + " (:c_starts_at, :c_ends_at, :c_id)";
+        if (cursor.getConveyorId() == null) {
+            where.append(backward
+                    ? " AND (conveyor_id IS NOT NULL OR " + row + ")"
+                    : " AND conveyor_id IS NULL AND " + row);
+        } else {
+            where.append(backward
+                    ? " AND (conveyor_id < :c_conveyor_id OR conveyor_id = :c_conveyor_id AND " + row + ")"
+                    : " AND (conveyor_id IS NULL OR conveyor_id > :c_conveyor_id OR " +
+                      "conveyor_id = :c_conveyor_id AND " + row + ")");
+            params.addValue("c_conveyor_id", cursor.getConveyorId());
+        }
+        params.addValue("c_starts_at", cursor.getStartsAt())
+                .addValue("c_ends_at", cursor.getEndsAt())
+                .addValue("c_id", cursor.getId());
+        return this;
+    }
+
+    String where() {
+        return where.toString();
+    }
+
+    MapSqlParameterSource params() {
+        return params;
+    }
+}
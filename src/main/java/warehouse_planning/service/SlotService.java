@@ -1,43 +1,53 @@
 package warehouse_planning.service;
 
-import java.io.IOException;
-import java.io.InputStream;
-import java.io.PushbackInputStream;
 import java.time.*;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
-import java.util.Map;
-import java.util.stream.Collectors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.Consumer;
 
-import org.apache.poi.openxml4j.exceptions.InvalidFormatException;
-import org.apache.poi.openxml4j.opc.OPCPackage;
-import org.apache.poi.xssf.usermodel.XSSFRow;
-import org.apache.poi.xssf.usermodel.XSSFSheet;
-import org.apache.poi.xssf.usermodel.XSSFWorkbook;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
 import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
 import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
 import org.springframework.stereotype.Component;
-
-import org.springframework.util.StringUtils;
-import org.springframework.web.multipart.MultipartFile;
-import org.springframework.web.servlet.ModelAndView;
-import warehouse_planning.algorithm.WarehousePlanning;
-import warehouse_planning.mapper.SlotMapper;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import warehouse_planning.algorithm.OccupancyTimeline;
+import warehouse_planning.algorithm.SlotBuffer;
+import warehouse_planning.config.SlotMetrics;
+import warehouse_planning.mapper.IndexedSlotMapper;
+import warehouse_planning.mapper.SlotBufferMapper;
+import warehouse_planning.model.Occupancy;
 import warehouse_planning.model.Slot;
+import warehouse_planning.model.SlotCursor;
+import warehouse_planning.model.SlotFilter;
+import warehouse_planning.model.SlotPage;
 
 /**
+ * Reads of slots and the changes that remove them or their conveyors. New slots come through
+ * {@link SlotIngestService}, plannings through {@link SlotPlanningService}.
+ *
  * @author agavrikov
  */
 @Component
 public class SlotService {
 
-    private static final String SEQUENCE = "slot_seq";
 
-    private static final int LIMIT = 10;
-    private static final int PAGE_COUNT = 10;
+    private static final int FETCH_SIZE = 10_000;
 
     private final NamedParameterJdbcTemplate jdbcTemplate;
+    private final NamedParameterJdbcTemplate cursorTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final SlotTransactions slotTransactions;
+    private final ConveyorTimelineService timelineService;
+    private final SlotPartitions partitions;
+    private final SlotCache slotCache;
+    private final SlotMetrics slotMetrics;
+    private final ForkJoinPool planningPool;
 
     public List<Slot> getSlots(long warehousesId) {
         String sql =
@@ -46,224 +56,206 @@ public class SlotService {
             " WHERE warehouse_id = :warehouse_id " +
             " ORDER BY conveyor_id, date, time_from";
         return jdbcTemplate.query(sql, new MapSqlParameterSource().addValue("warehouse_id", warehousesId),
-                new SlotMapper());
+                new IndexedSlotMapper());
     }
 
-    public List<Slot> getSlots(long warehousesId, String guid, Integer conveyorId, LocalDateTime timeFrom,
-                               LocalDateTime timeTo, int page, int limit) {
-        String sql =
-        "SELECT id, guid, warehouse_id, date, time_from, time_to, conveyor_id, creation_time " +
-        "  FROM (" +
-        "       SELECT id, guid, warehouse_id, date, time_from, time_to, conveyor_id, creation_time, " +
-        "                  ROW_NUMBER() OVER(ORDER BY conveyor_id, date, time_from, time_to) AS rn " +
-        "         FROM slot " +
-        "        WHERE warehouse_id = :warehouse_id " +
-        "          AND (:guid::text IS NULL OR :guid::text = '' OR :guid = guid) " +
-        "          AND (:conveyor_id::int IS NULL OR :conveyor_id = conveyor_id) " +
-        "          AND (:time_from::timestamp IS NULL OR :time_from <= date + time_from) " +
-        "          AND (:time_to::timestamp IS NULL OR CASE WHEN time_from < time_to THEN date + time_to ELSE date + 1 + time_to END <= :time_to) " +
-        "       ) AS t " +
-        " WHERE rn >= :rn_from AND rn <= :rn_to";
-
-        return jdbcTemplate.query(sql, new MapSqlParameterSource()
-                .addValue("warehouse_id", warehousesId)
-                .addValue("guid", guid)
-                .addValue("conveyor_id", conveyorId)
-                .addValue("time_from", timeFrom)
-                .addValue("time_to", timeTo)
-                .addValue("page", page)
-                .addValue("rn_from", (page - 1) * limit + 1)
-                .addValue("rn_to", page * limit),
-                new SlotMapper());
+    /**
+     * Seek pagination in the order {@code (conveyor_id, starts_at, ends_at, id)}: the page starts right after
+     * {@code after} or ends right before {@code before}. Without a cursor it is the first page, or the last one
+     * if {@code last} is set.
+     */
+    public SlotPage getSlots(long warehousesId, String guid, Integer conveyorId, LocalDateTime timeFrom,
+                             LocalDateTime timeTo, SlotCursor after, SlotCursor before, boolean last, int limit) {
+        List<Object> filter = Arrays.asList(guid, conveyorId, timeFrom, timeTo,
+                after != null ? after.encode() : null, before != null ? before.encode() : null, last, limit);
+        return slotCache.getPage(warehousesId, filter,
+                () -> loadSlots(warehousesId, guid, conveyorId, timeFrom, timeTo, after, before, last, limit));
     }
 
-    public int getSlotCount(long warehouseId, String guid, Integer conveyorId, LocalDateTime timeFrom,
-                            LocalDateTime timeTo) {
+    private SlotPage loadSlots(long warehousesId, String guid, Integer conveyorId, LocalDateTime timeFrom,
+                               LocalDateTime timeTo, SlotCursor after, SlotCursor before, boolean last, int limit) {
+        boolean backward = before != null || after == null && last;
+        SlotQuery query = new SlotQuery(warehousesId)
+                .guid(guid)
+                .conveyor(conveyorId)
+                .from(timeFrom)
+                .to(timeTo);
+        if (backward) {
+            query.before(before);
+        } else {
+            query.after(after);
+        }
         String sql =
-            "SELECT COUNT (*) " +
-            "  FROM slot " +
-            " WHERE warehouse_id = :warehouse_id " +
-            "   AND (:guid::text IS NULL OR :guid::text = '' OR :guid = guid) " +
-            "   AND (:conveyor_id::int IS NULL OR :conveyor_id = conveyor_id) " +
-            "   AND (:time_from::timestamp IS NULL OR :time_from <= date + time_from) " +
-            "   AND (:time_to::timestamp IS NULL OR CASE WHEN time_from < time_to THEN date + time_to ELSE date + 1 + time_to END <= :time_to) ";
-        return jdbcTemplate.queryForObject(sql, new MapSqlParameterSource()
-                        .addValue("warehouse_id", warehouseId)
-                        .addValue("guid", guid)
-                        .addValue("conveyor_id", conveyorId)
-                        .addValue("time_from", timeFrom)
-                        .addValue("time_to", timeTo), Integer.class);
-    }
+            "SELECT id, guid, warehouse_id, date, time_from, time_to, conveyor_id, creation_time " +
+            "  FROM slot " + query.where() +
+            (backward
+                ? " ORDER BY conveyor_id DESC, starts_at DESC, ends_at DESC, id DESC"
+                : " ORDER BY conveyor_id, starts_at, ends_at, id") +
+            " LIMIT :limit";
+
+        long start = System.nanoTime();
+        List<Slot> slots = jdbcTemplate.query(sql, query.params().addValue("limit", limit + 1),
+                new IndexedSlotMapper());
+        slotMetrics.getPageQuery().record(start, slots.size());
+        boolean more = slots.size() > limit;
+        if (more) {
+            slots = new ArrayList<>(slots.subList(0, limit));
+        }
+        if (backward) {
+            Collections.reverse(slots);
+        }
+        if (slots.isEmpty()) {
+            return new SlotPage(slots, null, null);
+        }
 
-    public void save(String guid, long warehouseId, LocalDate date, LocalTime timeFrom, LocalTime timeTo) {
-        String sql =
-            "INSERT INTO slot (id, guid, warehouse_id, date, time_from, time_to, conveyor_id) " +
-            "VALUES (nextval('" + SEQUENCE + "'), :guid, :warehouse_id, :date, :time_from, :time_to, NULL)";
-        jdbcTemplate.update(sql, new MapSqlParameterSource()
-                        .addValue("guid", guid)
-                        .addValue("warehouse_id", warehouseId)
-                        .addValue("date", date)
-                        .addValue("time_from", timeFrom)
-                        .addValue("time_to", timeTo));
+        SlotCursor first = SlotCursor.of(slots.get(0));
+        SlotCursor end = SlotCursor.of(slots.get(slots.size() - 1));
+        return backward
+                ? new SlotPage(slots, before != null ? end : null, more ? first : null)
+                : new SlotPage(slots, more ? end : null, after != null ? first : null);
     }
 
-    public void saveBatch(List<Slot> slots) {
-        String sql = "INSERT INTO slot (id, guid, warehouse_id, date, time_from, time_to, conveyor_id) " +
-                     "VALUES (nextval('" + SEQUENCE + "'), :guid, :warehouseId, :date, :timeFrom, :timeTo, NULL)";
-        List<Map<String, Object>> batchValues = new ArrayList<>(slots.size());
-        slots.forEach(slot ->
-            batchValues.add(
-                new MapSqlParameterSource("guid", slot.getGuid())
-                    .addValue("warehouseId", slot.getWarehouseId())
-                    .addValue("date", slot.getDate())
-                    .addValue("timeFrom", slot.getTimeFrom())
-                    .addValue("timeTo", slot.getTimeTo())
-                    .getValues()
-            )
-        );
-        jdbcTemplate.batchUpdate(sql, batchValues.toArray(new Map[slots.size()]));
+    public SlotPage getSlots(long warehouseId, SlotFilter filter, SlotCursor after, SlotCursor before, boolean last,
+                             int limit) {
+        return getSlots(warehouseId, filter.getGuid(), filter.getConveyorId(), filter.getFrom(), filter.getTo(),
+                after, before, last, limit);
     }
 
-
-    public void delete(long id) {
-        String sql = "DELETE FROM slot WHERE id = :id";
-        jdbcTemplate.update(sql, new MapSqlParameterSource().addValue("id", id));
+    public int getSlotCount(long warehouseId, SlotFilter filter) {
+        return getSlotCount(warehouseId, filter.getGuid(), filter.getConveyorId(), filter.getFrom(), filter.getTo());
     }
 
-    public void download(long warehouseId, MultipartFile file) throws IOException, InvalidFormatException {
-        InputStream inputStream = file.getInputStream();
-        if (!inputStream.markSupported()) {
-            inputStream = new PushbackInputStream(inputStream, 8);
-        }
-        XSSFWorkbook workbook = new XSSFWorkbook(OPCPackage.open(inputStream));
-        XSSFSheet sheet = workbook.getSheetAt(0);
-
-        List<Slot> slots = new ArrayList<>();
+    /**
+     * Streams the matching slots in listing order through a cursor, {@link #FETCH_SIZE} rows at a time, without
+     * collecting them. The connection is held until {@code consumer} has seen the last slot.
+     */
+    public void forEachSlot(long warehouseId, SlotFilter filter, Consumer<Slot> consumer) {
+        SlotQuery query = new SlotQuery(warehouseId)
+                .guid(filter.getGuid())
+                .conveyor(filter.getConveyorId())
+                .from(filter.getFrom())
+                .to(filter.getTo());
+        String sql =
+            "SELECT id, guid, warehouse_id, date, time_from, time_to, conveyor_id, creation_time " +
+            "  FROM slot " + query.where() +
+            " ORDER BY conveyor_id, starts_at, ends_at, id";
+        IndexedSlotMapper mapper = new IndexedSlotMapper();
+        int[] rowNum = {0};
+        transactionTemplate.execute(status -> {
+            cursorTemplate.query(sql, query.params(),
+                    (RowCallbackHandler) rs -> consumer.accept(mapper.mapRow(rs, rowNum[0]++)));
+            return null;
+        });
+    }
 
-        for (int i = 0; i < sheet.getLastRowNum(); ++i) {
-            XSSFRow row = sheet.getRow(i);
-            String guid = row.getCell(0).getStringCellValue();
+    public int getSlotCount(long warehouseId, String guid, Integer conveyorId, LocalDateTime timeFrom,
+                            LocalDateTime timeTo) {
+        return slotCache.getCount(warehouseId, Arrays.asList(guid, conveyorId, timeFrom, timeTo),
+                () -> countSlots(warehouseId, guid, conveyorId, timeFrom, timeTo));
+    }
 
-            LocalDate date = getLocalDateCell(row, 1);
-            LocalTime timeFrom = getLocalTimeCell(row, 2);
-            LocalTime timeTo = getLocalTimeCell(row, 3);
+    private int countSlots(long warehouseId, String guid, Integer conveyorId, LocalDateTime timeFrom,
+                           LocalDateTime timeTo) {
+        SlotQuery query = new SlotQuery(warehouseId)
+                .guid(guid)
+                .conveyor(conveyorId)
+                .from(timeFrom)
+                .to(timeTo);
+        String sql = "SELECT COUNT (*) FROM slot" + query.where();
+        long start = System.nanoTime();
+        int count = jdbcTemplate.queryForObject(sql, query.params(), Integer.class);
+        slotMetrics.getCountQuery().record(start);
+        return count;
+    }
 
-            if (timeFrom.isAfter(timeTo) || timeFrom.equals(timeTo)) {
-                continue;
+    public void delete(long warehouseId, long id) {
+        String sql = "DELETE FROM slot WHERE warehouse_id = :warehouse_id AND id = :id";
+        int count = transactionTemplate.execute(status -> {
+            slotTransactions.lockWarehouse(warehouseId);
+            int deleted = jdbcTemplate.update(sql, new MapSqlParameterSource()
+                    .addValue("warehouse_id", warehouseId)
+                    .addValue("id", id));
+            if (deleted > 0) {
+                slotTransactions.incrementVersion(warehouseId);
             }
-
-            slots.add(new Slot(0, guid, warehouseId, date, timeFrom, timeTo, -1, LocalDateTime.now()));
+            return deleted;
+        });
+        if (count > 0) {
+            timelineService.invalidate(warehouseId);
+            slotCache.invalidate(warehouseId);
         }
-        saveBatch(slots);
     }
 
-    public void updateConveyors(List<Slot> slots) {
-        String sql = "UPDATE slot SET conveyor_id = :conveyorId WHERE id = :id";
-        List<Map<String, Object>> batchValues = new ArrayList<>(slots.size());
-        slots.forEach(slot ->
-            batchValues.add(
-                new MapSqlParameterSource("conveyorId", slot.getConveyorId())
-                    .addValue("id", slot.getId())
-                    .getValues()
-            )
-        );
-        jdbcTemplate.batchUpdate(sql, batchValues.toArray(new Map[slots.size()]));
+    /**
+     * Streams the slots of the warehouse into a buffer in start order, {@link #FETCH_SIZE} rows at a time.
+     * PgJDBC only reads through a cursor with auto-commit off, hence the transaction.
+     */
+    public SlotBuffer getSlotBuffer(long warehouseId) {
+        String sql =
+            "SELECT id, starts_at, ends_at, conveyor_id " +
+            "  FROM slot " +
+            " WHERE warehouse_id = :warehouse_id " +
+            " ORDER BY starts_at, ends_at, id";
+        SlotBuffer buffer = new SlotBuffer(FETCH_SIZE);
+        buffer.markSorted();
+        transactionTemplate.execute(status -> {
+            cursorTemplate.query(sql, new MapSqlParameterSource().addValue("warehouse_id", warehouseId),
+                    new SlotBufferMapper(buffer));
+            return null;
+        });
+        return buffer;
     }
 
     public void clearConveyors(long warehouseId) {
         String sql = "UPDATE slot SET conveyor_id = NULL WHERE warehouse_id = :warehouse_id";
-        jdbcTemplate.update(sql, new MapSqlParameterSource().addValue("warehouse_id", warehouseId));
+        transactionTemplate.execute(status -> {
+            slotTransactions.lockWarehouse(warehouseId);
+            slotTransactions.incrementVersion(warehouseId);
+            return jdbcTemplate.update(sql, new MapSqlParameterSource().addValue("warehouse_id", warehouseId));
+        });
+        timelineService.invalidate(warehouseId);
+        slotCache.invalidate(warehouseId);
     }
 
+    /**
+     * Drops the partitions of the warehouse instead of deleting its rows where the slot table is partitioned by
+     * warehouse.
+     */
     public void deleteSlots(long warehouseId) {
-        String sql = "DELETE FROM slot WHERE warehouse_id = :warehouse_id";
-        jdbcTemplate.update(sql, new MapSqlParameterSource().addValue("warehouse_id", warehouseId));
-    }
-
-    public void planning(long warehouseId) {
-        List<Slot> slots = getSlots(warehouseId).stream()
-            .sorted()
-            .collect(Collectors.toList());
-        WarehousePlanning.planning(slots);
-        updateConveyors(slots);
-    }
-
-    public ModelAndView getSlotModelAndView(String guid, long warehouseId, Integer conveyorId, LocalDate date,
-        LocalDate dateFrom, LocalTime timeFrom, LocalDate dateTo, LocalTime timeTo, int page)
-    {
-        String viewName = "";
-        LocalDateTime dateTimeFrom = null;
-        LocalDateTime dateTimeTo = null;
-        LocalTime midnight = LocalTime.of(0, 0);
-
-        if (StringUtils.isEmpty(guid) && conveyorId == null && date == null && dateFrom == null && timeFrom == null &&
-                dateTo == null && timeTo == null) {
-            viewName = "slots";
-        } else if (conveyorId != null && StringUtils.isEmpty(guid) && date == null && dateFrom == null &&
-                timeFrom == null && dateTo == null && timeTo == null) {
-            viewName = "conveyor";
-        } else if (date != null && StringUtils.isEmpty(guid) && conveyorId == null && dateFrom == null &&
-                timeFrom == null && dateTo == null && timeTo == null) {
-            viewName = "date";
-            dateTimeFrom = LocalDateTime.of(date, midnight);
-            dateTimeTo = LocalDateTime.of(date.plusDays(1), midnight);
-        } else {
-            viewName = "search";
-            if (dateFrom != null) {
-                dateTimeFrom = LocalDateTime.of(dateFrom, timeFrom != null ? timeFrom : midnight);
-            }
-            if (dateTo != null) {
-                dateTimeTo = timeTo != null ? LocalDateTime.of(dateTo, timeTo) : LocalDateTime.of(dateTo.plusDays(1), midnight);
-            }
-        }
-
-        ModelAndView model = new ModelAndView("warehouse_planning/" + viewName);
-        model.addObject("warehouseId", warehouseId);
-        model.addObject("guid", guid);
-        model.addObject("conveyorId", conveyorId);
-        model.addObject("date", date);
-        model.addObject("dateFrom", dateFrom);
-        model.addObject("timeFrom", timeFrom);
-        model.addObject("dateTo", dateTo);
-        model.addObject("timeTo", timeTo);
-        model.addObject("slots", getSlots(warehouseId, guid, conveyorId, dateTimeFrom, dateTimeTo, page, LIMIT));
-        int maxPage = (int) Math.ceil(
-                getSlotCount(warehouseId, guid, conveyorId, dateTimeFrom, dateTimeTo) * 1. / LIMIT);
-
-        List<Integer> pages = new ArrayList<>();
-        int left, right;
-        if (page - PAGE_COUNT / 2 < 1) {
-            left = 1;
-        } else if (page + PAGE_COUNT / 2 + 1 > maxPage) {
-            left = Math.max(maxPage - PAGE_COUNT + 1, 1);
-        } else {
-            left = page - PAGE_COUNT / 2;
-        }
-        right = Math.min(left + PAGE_COUNT, maxPage);
-        for (int p = left; p <= right; ++p) {
-            pages.add(p);
-        }
-        model.addObject("page", page);
-        model.addObject("maxPage", maxPage);
-        model.addObject("pages", pages);
-        return model;
-    }
-
-    private LocalDate getLocalDateCell(XSSFRow row, int cellnum) {
-        return Instant.ofEpochMilli(
-                row.getCell(cellnum).getDateCellValue().getTime()
-        ).atZone(ZoneId.systemDefault()).toLocalDate();
+        partitions.dropWarehouse(warehouseId);
+        timelineService.invalidate(warehouseId);
+        slotCache.invalidate(warehouseId);
     }
 
-    private LocalTime getLocalTimeCell(XSSFRow row, int cellnum) {
-        LocalTime dateTime = LocalDateTime.ofInstant(
-                row.getCell(cellnum).getDateCellValue().toInstant(), ZoneId.systemDefault()
-        ).toLocalTime();
-        return LocalTime.of(dateTime.getHour(), dateTime.getMinute());
+    /**
+     * Counts concurrent slots per bucket of {@code bucketMinutes} over {@code bucketCount} buckets from
+     * {@code from}. Start and end minutes of the warehouse are loaded once and kept until its slots change.
+     */
+    public Occupancy getOccupancy(long warehouseId, LocalDateTime from, int bucketMinutes, int bucketCount) {
+        OccupancyTimeline timeline = slotCache.getOccupancy(warehouseId,
+                () -> {
+                    SlotBuffer buffer = getSlotBuffer(warehouseId);
+                    return planningPool.submit(() -> OccupancyTimeline.of(buffer)).join();
+                });
+        long fromMinute = from.toEpochSecond(ZoneOffset.UTC) / 60;
+        return new Occupancy(warehouseId, from, bucketMinutes,
+                timeline.occupancy(fromMinute, bucketMinutes, bucketCount));
     }
 
     @Autowired
-    public SlotService(NamedParameterJdbcTemplate jdbcTemplate) {
+    public SlotService(NamedParameterJdbcTemplate jdbcTemplate, SlotTransactions slotTransactions,
+                       ConveyorTimelineService timelineService, SlotPartitions partitions, SlotCache slotCache,
+                       SlotMetrics slotMetrics, ForkJoinPool planningPool, TransactionTemplate transactionTemplate) {
         this.jdbcTemplate = jdbcTemplate;
+        this.slotCache = slotCache;
+        this.slotMetrics = slotMetrics;
+        JdbcTemplate cursorJdbcTemplate = new JdbcTemplate(jdbcTemplate.getJdbcTemplate().getDataSource());
+        cursorJdbcTemplate.setFetchSize(FETCH_SIZE);
+        this.cursorTemplate = new NamedParameterJdbcTemplate(cursorJdbcTemplate);
+        this.transactionTemplate = transactionTemplate;
+        this.slotTransactions = slotTransactions;
+        this.timelineService = timelineService;
+        this.partitions = partitions;
+        this.planningPool = planningPool;
     }
 }
@@ -0,0 +1,186 @@
+package warehouse_planning.service;
+
+import java.sql.PreparedStatement;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+
+import org.postgresql.PGConnection;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import warehouse_planning.algorithm.SlotBuffer;
+import warehouse_planning.config.SlotMetrics;
+import warehouse_planning.model.Slot;
+
+/**
+ * Transactions that change slots, shared by the services that write them: the advisory lock of the warehouse, its
+ * version and the write-back of conveyors.
+ *
+ * @author agavrikov
+ */
+@Component
+public class SlotTransactions {
+
+    private static final int UPDATE_CHUNK_SIZE = 100_000;
+
+    private final NamedParameterJdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final ConveyorTimelineService timelineService;
+    private final SlotPartitions partitions;
+    private final SlotMetrics slotMetrics;
+
+    /**
+     * Serializes the writers of the warehouse until the current transaction ends, other warehouses are not
+     * affected.
+     */
+    public void lockWarehouse(long warehouseId) {
+        String sql = "SELECT 1 FROM pg_advisory_xact_lock(:warehouse_id)";
+        jdbcTemplate.queryForObject(sql, new MapSqlParameterSource("warehouse_id", warehouseId), Integer.class);
+    }
+
+    /**
+     * Counts a change of the slots of the warehouse, a planning that read them before does not write its result.
+     * Called under the lock of the warehouse.
+     */
+    public void incrementVersion(long warehouseId) {
+        String sql = "UPDATE warehouse SET version = version + 1, modified_time = clock_timestamp() WHERE id = :id";
+        jdbcTemplate.update(sql, new MapSqlParameterSource("id", warehouseId));
+    }
+
+    public long getVersion(long warehouseId) {
+        String sql = "SELECT COALESCE((SELECT version FROM warehouse WHERE id = :id), 0)";
+        return jdbcTemplate.queryForObject(sql, new MapSqlParameterSource("id", warehouseId), Long.class);
+    }
+
+    /**
+     * Runs a write of slots in one transaction with the locks of their warehouses and increments the versions of
+     * the warehouses, see {@link #lockedWrite}.
+     */
+    public <T> T writeSlots(List<Slot> slots, Supplier<T> write) {
+        return lockedWrite(slots, () -> {
+            warehouseIds(slots).stream().sorted().forEach(this::incrementVersion);
+            return write.get();
+        });
+    }
+
+    /**
+     * Runs a write of slots in one transaction with the locks of their warehouses, taken in id order so that
+     * writers of the same warehouses do not deadlock. The partitions of the slots are created before; if one was
+     * dropped until the locks are taken, see {@link SlotPartitions#dropWarehouse}, they are created again.
+     * Conveyors of new slots are assigned in the transaction too: a timeline only changes under the lock of its
+     * warehouse. The timelines are read again if the write fails, they may hold assignments that were not stored.
+     */
+    public <T> T lockedWrite(List<Slot> slots, Supplier<T> write) {
+        List<Long> warehouseIds = new ArrayList<>(warehouseIds(slots));
+        Collections.sort(warehouseIds);
+        while (true) {
+            partitions.ensure(slots);
+            boolean[] dropped = {false};
+            T result;
+            try {
+                result = transactionTemplate.execute(status -> {
+                    warehouseIds.forEach(this::lockWarehouse);
+                    if (!partitions.exist(slots)) {
+                        dropped[0] = true;
+                        return null;
+                    }
+                    return write.get();
+                });
+            } catch (RuntimeException e) {
+                warehouseIds.forEach(timelineService::invalidate);
+                throw e;
+            }
+            if (!dropped[0]) {
+                return result;
+            }
+        }
+    }
+
+    public static Set<Long> warehouseIds(List<Slot> slots) {
+        return slots.stream().map(Slot::getWarehouseId).collect(Collectors.toSet());
+    }
+
+    /**
+     * Writes the conveyors of the buffer slots that differ from {@code previous}.
+     *
+     * @return number of changed slots
+     */
+    public int updateConveyors(long warehouseId, SlotBuffer slots, int[] previous) {
+        long[] ids = new long[slots.size()];
+        int[] conveyors = new int[slots.size()];
+        int count = 0;
+        for (int i = 0; i < slots.size(); ++i) {
+            if (slots.getConveyor(i) != previous[i]) {
+                ids[count] = slots.getId(i);
+                conveyors[count++] = slots.getConveyor(i);
+            }
+        }
+        updateConveyors(warehouseId, ids, conveyors, count);
+        return count;
+    }
+
+    public void updateConveyors(long warehouseId, List<Slot> slots) {
+        long[] ids = new long[slots.size()];
+        int[] conveyors = new int[slots.size()];
+        for (int i = 0; i < slots.size(); ++i) {
+            Slot slot = slots.get(i);
+            ids[i] = slot.getId();
+            conveyors[i] = slot.isFree() ? 0 : slot.getConveyorId();
+        }
+        updateConveyors(warehouseId, ids, conveyors, slots.size());
+    }
+
+    /**
+     * Set-based write-back: the {@code (id, conveyor)} pairs go as two arrays into one statement per
+     * {@link #UPDATE_CHUNK_SIZE} pairs, conveyor 0 clears the assignment. Rows that already have the conveyor are
+     * not touched.
+     */
+    private void updateConveyors(long warehouseId, long[] ids, int[] conveyors, int count) {
+        String sql =
+            "UPDATE slot s " +
+            "   SET conveyor_id = NULLIF(u.conveyor_id, 0) " +
+            "  FROM unnest(?::bigint[], ?::int[]) AS u(id, conveyor_id) " +
+            " WHERE s.warehouse_id = ? " +
+            "   AND s.id = u.id " +
+            "   AND s.conveyor_id IS DISTINCT FROM NULLIF(u.conveyor_id, 0)";
+        if (count == 0) {
+            return;
+        }
+        long start = System.nanoTime();
+        jdbcTemplate.getJdbcTemplate().execute((ConnectionCallback<Void>) connection -> {
+            PGConnection pgConnection = connection.unwrap(PGConnection.class);
+            try (PreparedStatement statement = connection.prepareStatement(sql)) {
+                for (int from = 0; from < count; from += UPDATE_CHUNK_SIZE) {
+                    int to = Math.min(count, from + UPDATE_CHUNK_SIZE);
+                    statement.setArray(1, pgConnection.createArrayOf("int8", Arrays.copyOfRange(ids, from, to)));
+                    statement.setArray(2,
+                            pgConnection.createArrayOf("int4", Arrays.copyOfRange(conveyors, from, to)));
+                    statement.setLong(3, warehouseId);
+                    statement.executeUpdate();
+                }
+            }
+            return null;
+        });
+        slotMetrics.getUpdateConveyors().record(start, count);
+    }
+
+    @Autowired
+    public SlotTransactions(NamedParameterJdbcTemplate jdbcTemplate, TransactionTemplate transactionTemplate,
+                            ConveyorTimelineService timelineService, SlotPartitions partitions,
+                            SlotMetrics slotMetrics) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = transactionTemplate;
+        this.timelineService = timelineService;
+        this.partitions = partitions;
+        this.slotMetrics = slotMetrics;
+    }
+}
@@ -6,6 +6,7 @@ import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
 import org.springframework.stereotype.Component;
 import warehouse_planning.mapper.WarehouseMapper;
 import warehouse_planning.model.Warehouse;
+import warehouse_planning.model.WarehouseVersion;
 
 import java.util.List;
 
@@ -18,10 +19,17 @@ public class WarehouseService {
     private static final String SEQUENCE = "warehouse_seq";
 
     private final NamedParameterJdbcTemplate jdbcTemplate;
+    private final ConveyorTimelineService timelineService;
+    private final SlotPartitions partitions;
+    private final SlotCache slotCache;
 
     public List<Warehouse> getWarehouses() {
+        return slotCache.getWarehouses(this::loadWarehouses);
+    }
+
+    private List<Warehouse> loadWarehouses() {
         String sql =
-            "SELECT id, creation_time, name " +
+            "SELECT id, creation_time, name, conveyor_capacity " +
             "  FROM warehouse " +
             " ORDER BY id";
         return jdbcTemplate.query(sql, new WarehouseMapper());
@@ -29,7 +37,7 @@ public class WarehouseService {
 
     public List<Warehouse> getWarehouse(long id) {
         String sql =
-            "SELECT id, creation_time, name " +
+            "SELECT id, creation_time, name, conveyor_capacity " +
             "  FROM warehouse " +
             " WHERE id = :id " +
             " ORDER BY id";;
@@ -42,20 +50,53 @@ public class WarehouseService {
     public void save(String name) {
         String sql = "INSERT INTO warehouse (id, name) VALUES (nextval('" + SEQUENCE + "'), :name)";
         jdbcTemplate.update(sql, new MapSqlParameterSource().addValue("name", name));
+        slotCache.invalidateWarehouses();
     }
 
 
-    public void delete(long id) {
-        String sql = "DELETE FROM warehouse WHERE id = :id";
-        jdbcTemplate.update(sql, new MapSqlParameterSource()
-                        .addValue("id", id));
-        sql = "DELETE FROM slot WHERE warehouse_id = :warehouse_id";
+    /**
+     * Increments the version of the warehouse, which validates the warehouse list too.
+     *
+     * @param conveyorCapacity number of physical conveyors, {@code null} if not limited
+     */
+    public void setConveyorCapacity(long id, Integer conveyorCapacity) {
+        String sql =
+            "UPDATE warehouse " +
+            "   SET conveyor_capacity = :conveyor_capacity, version = version + 1, modified_time = clock_timestamp() " +
+            " WHERE id = :id";
         jdbcTemplate.update(sql, new MapSqlParameterSource()
-                .addValue("warehouse_id", id));
+                .addValue("id", id)
+                .addValue("conveyor_capacity", conveyorCapacity));
+        slotCache.invalidate(id);
+        slotCache.invalidateWarehouses();
+    }
+
+    public WarehouseVersion getVersion(long id) {
+        return slotCache.getVersion(id);
+    }
+
+    public WarehouseVersion getWarehousesVersion() {
+        return slotCache.getWarehousesVersion();
+    }
+
+    /**
+     * Drops the slots and then the row of the warehouse under its lock, a running planning of the warehouse fails
+     * its version check.
+     */
+    public void delete(long id) {
+        String sql = "DELETE FROM warehouse WHERE id = ?";
+        partitions.dropWarehouse(id, session -> session.update(sql, id));
+        timelineService.invalidate(id);
+        slotCache.invalidate(id);
+        slotCache.invalidateWarehouses();
     }
 
     @Autowired
-    public WarehouseService(NamedParameterJdbcTemplate jdbcTemplate) {
+    public WarehouseService(NamedParameterJdbcTemplate jdbcTemplate, ConveyorTimelineService timelineService,
+                            SlotPartitions partitions, SlotCache slotCache) {
         this.jdbcTemplate = jdbcTemplate;
+        this.timelineService = timelineService;
+        this.partitions = partitions;
+        this.slotCache = slotCache;
     }
 }
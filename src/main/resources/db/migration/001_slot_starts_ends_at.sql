@@ -0,0 +1,7 @@
+-- Stored start/end of every slot, so filters and the listing order are plain column comparisons.
+-- A slot whose time_to is before time_from ends the next day. Requires PostgreSQL 12+.
+ALTER TABLE slot
+    ADD COLUMN starts_at timestamp GENERATED ALWAYS AS (date + time_from) STORED,
+    ADD COLUMN ends_at   timestamp GENERATED ALWAYS AS (
+        CASE WHEN time_from > time_to THEN date + 1 + time_to ELSE date + time_to END
+    ) STORED;
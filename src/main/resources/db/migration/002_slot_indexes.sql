@@ -0,0 +1,10 @@
+-- Listing and conveyor filter: WHERE warehouse_id = ? [AND conveyor_id = ?] [AND starts_at >= ?]
+-- ORDER BY conveyor_id, starts_at, ends_at, id. The trailing columns serve the seek cursor.
+CREATE INDEX CONCURRENTLY IF NOT EXISTS slot_warehouse_conveyor_starts_at_idx
+    ON slot (warehouse_id, conveyor_id, starts_at, ends_at, id);
+
+-- Search by slot number.
+CREATE INDEX CONCURRENTLY IF NOT EXISTS slot_warehouse_guid_idx
+    ON slot (warehouse_id, guid);
+
+ANALYZE slot;
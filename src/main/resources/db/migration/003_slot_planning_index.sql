@@ -0,0 +1,6 @@
+-- Planning load: WHERE warehouse_id = ? ORDER BY starts_at, ends_at, id, read through a cursor.
+-- The included columns make it an index-only scan on a vacuumed table.
+CREATE INDEX CONCURRENTLY IF NOT EXISTS slot_warehouse_starts_at_idx
+    ON slot (warehouse_id, starts_at, ends_at, id) INCLUDE (conveyor_id);
+
+ANALYZE slot;
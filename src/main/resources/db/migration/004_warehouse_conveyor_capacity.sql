@@ -0,0 +1,2 @@
+-- Number of physical conveyors of the warehouse, NULL if not limited.
+ALTER TABLE warehouse ADD COLUMN IF NOT EXISTS conveyor_capacity integer CHECK (conveyor_capacity > 0);
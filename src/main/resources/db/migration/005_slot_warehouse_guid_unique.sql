@@ -0,0 +1,15 @@
+-- Slot numbers are unique within a warehouse, the upsert import matches rows on them with ON CONFLICT.
+-- Earlier imports could load a number twice, the first loaded slot is kept.
+DELETE FROM slot s
+ USING slot d
+ WHERE d.warehouse_id = s.warehouse_id
+   AND d.guid = s.guid
+   AND d.id < s.id;
+
+CREATE UNIQUE INDEX CONCURRENTLY IF NOT EXISTS slot_warehouse_guid_key
+    ON slot (warehouse_id, guid);
+
+-- Replaced by the unique index, which also serves the search by slot number.
+DROP INDEX CONCURRENTLY IF EXISTS slot_warehouse_guid_idx;
+
+ANALYZE slot;
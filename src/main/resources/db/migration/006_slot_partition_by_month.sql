@@ -0,0 +1,57 @@
+-- Partitions slot by month of date and every month by warehouse, e.g. slot_y2021m03 and slot_y2021m03_w12, so
+-- dropping a past month or the slots of a warehouse drops tables instead of deleting rows. SlotPartitions creates
+-- the partitions of new months and warehouses before slots are written, new months are partitioned by warehouse
+-- only with slots.partitions.byWarehouse, and drops them on retention.
+-- The rows are copied into the new table: run it while the application is stopped.
+--
+-- Unique indexes of a partitioned table must contain the partition key, so the slot number is no longer unique
+-- in the database: SlotIngestService keeps it unique per warehouse under the advisory lock of the warehouse.
+BEGIN;
+
+ALTER TABLE slot RENAME TO slot_unpartitioned;
+
+CREATE TABLE slot (LIKE slot_unpartitioned INCLUDING DEFAULTS INCLUDING GENERATED INCLUDING CONSTRAINTS)
+    PARTITION BY RANGE (date);
+
+DO $$
+DECLARE
+    month date;
+    warehouse bigint;
+BEGIN
+    FOR month IN SELECT DISTINCT date_trunc('month', date)::date FROM slot_unpartitioned LOOP
+        EXECUTE format('CREATE TABLE %I PARTITION OF slot FOR VALUES FROM (%L) TO (%L) PARTITION BY LIST (warehouse_id)',
+                       to_char(month, '"slot_y"YYYY"m"MM'), month, (month + interval '1 month')::date);
+        FOR warehouse IN SELECT DISTINCT warehouse_id FROM slot_unpartitioned
+                          WHERE date >= month AND date < month + interval '1 month' LOOP
+            EXECUTE format('CREATE TABLE %I PARTITION OF %I FOR VALUES IN (%s)',
+                           to_char(month, '"slot_y"YYYY"m"MM') || '_w' || warehouse,
+                           to_char(month, '"slot_y"YYYY"m"MM'), warehouse);
+        END LOOP;
+    END LOOP;
+END $$;
+
+INSERT INTO slot (id, guid, warehouse_id, date, time_from, time_to, conveyor_id, creation_time)
+SELECT id, guid, warehouse_id, date, time_from, time_to, conveyor_id, creation_time
+  FROM slot_unpartitioned;
+
+-- A slot_seq owned by the old table would be dropped with it.
+ALTER SEQUENCE slot_seq OWNED BY NONE;
+
+DROP TABLE slot_unpartitioned;
+
+-- Ids come from slot_seq, the index serves lookups by id without the partition key.
+CREATE INDEX slot_id_idx
+    ON slot (id);
+
+CREATE INDEX slot_warehouse_conveyor_starts_at_idx
+    ON slot (warehouse_id, conveyor_id, starts_at, ends_at, id);
+
+CREATE INDEX slot_warehouse_starts_at_idx
+    ON slot (warehouse_id, starts_at, ends_at, id) INCLUDE (conveyor_id);
+
+CREATE INDEX slot_warehouse_guid_idx
+    ON slot (warehouse_id, guid);
+
+COMMIT;
+
+ANALYZE slot;
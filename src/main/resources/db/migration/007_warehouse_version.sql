@@ -0,0 +1,3 @@
+-- Number of changes of the slots of the warehouse. Writers of slots increment it under the advisory lock of the
+-- warehouse; a planning writes its conveyors back only if the version is still the one of the slots it planned.
+ALTER TABLE warehouse ADD COLUMN IF NOT EXISTS version bigint NOT NULL DEFAULT 0;
@@ -0,0 +1,3 @@
+-- Time of the last increment of warehouse.version, the Last-Modified of the slots of the warehouse. The version
+-- also counts changes of the warehouse row itself, so the warehouse list is validated by the versions too.
+ALTER TABLE warehouse ADD COLUMN IF NOT EXISTS modified_time timestamptz NOT NULL DEFAULT now();
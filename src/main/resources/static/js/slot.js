@@ -44,10 +44,27 @@ function deleteWarehouse(warehouseId){
 
 function planning(warehouseId, page) {
     $.ajax({
-        "url": "/warehouses/" + warehouseId + "/planning?page=" + page,
+        "url": "/warehouses/" + warehouseId + "/planning",
+        "method": "POST"
+    }).done(function(job, status, xhr) {
+        waitForJob(xhr.getResponseHeader("Location"));
+    }).fail(function (data, status) {
+        alert("Error: " + data.status + " " + data.statusText + " " + status);
+    });
+}
+
+function waitForJob(url) {
+    $.ajax({
+        "url": url,
         "method": "GET"
-    }).done(function() {
-        location.reload();
+    }).done(function(job) {
+        if (job.status === "DONE") {
+            location.reload();
+        } else if (job.status === "FAILED") {
+            alert("Error: " + job.error);
+        } else {
+            setTimeout(function() { waitForJob(url); }, 500);
+        }
     }).fail(function (data, status) {
         alert("Error: " + data.status + " " + data.statusText + " " + status);
     });
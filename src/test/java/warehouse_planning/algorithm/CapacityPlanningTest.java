@@ -0,0 +1,106 @@
+package warehouse_planning.algorithm;
+
+import org.junit.Test;
+
+import warehouse_planning.algorithm.CapacityPlanning.Mode;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * @author agavrikov
+ */
+public class CapacityPlanningTest {
+
+    private static SlotBuffer example() {
+        return Slots.of(new long[]{0, 10}, new long[]{5, 7}, new long[]{8, 20});
+    }
+
+    @Test
+    public void firstComeRejectsSlotsStartingOnBusyConveyors() {
+        SlotBuffer slots = example();
+        CapacityPlan plan = CapacityPlanning.planning(slots, 1, Mode.FIRST_COME);
+
+        assertEquals(1, plan.getConveyorCount());
+        assertArrayEquals(new int[]{1, 2}, plan.getRejected());
+        assertArrayEquals(new int[]{1, 0, 0}, slots.copyConveyors());
+        assertEquals(2, plan.getPeakOverlap());
+        assertArrayEquals(new long[]{5, 8}, plan.getPeakMinutes());
+    }
+
+    @Test
+    public void maxAcceptedRejectsSlotEndingLast() {
+        SlotBuffer slots = example();
+        CapacityPlan plan = CapacityPlanning.planning(slots, 1, Mode.MAX_ACCEPTED);
+
+        assertEquals(1, plan.getConveyorCount());
+        assertArrayEquals(new int[]{0}, plan.getRejected());
+        assertArrayEquals(new int[]{0, 1, 1}, slots.copyConveyors());
+        assertEquals(2, plan.getPeakOverlap());
+    }
+
+    @Test
+    public void acceptsAllWithinCapacity() {
+        for (Mode mode : Mode.values()) {
+            SlotBuffer slots = Slots.random(200, 2, 3);
+            int capacity = Slots.maxOverlap(slots, true);
+            CapacityPlan plan = CapacityPlanning.planning(slots, capacity, mode);
+
+            assertEquals(0, plan.getRejected().length);
+            assertEquals(capacity, plan.getPeakOverlap());
+            Slots.assertAllPlanned(slots, plan.getConveyorCount());
+        }
+    }
+
+    @Test
+    public void plansAcceptedSlotsOnCapacity() {
+        for (long seed = 0; seed < 20; ++seed) {
+            for (Mode mode : Mode.values()) {
+                SlotBuffer slots = Slots.random(300, 1, seed);
+                int capacity = 1 + (int) (seed % 5);
+                CapacityPlan plan = CapacityPlanning.planning(slots, capacity, mode);
+
+                assertTrue(plan.getConveyorCount() <= capacity);
+                Slots.assertPlanned(slots, plan.getConveyorCount());
+                assertEquals(Slots.maxOverlap(slots, false), plan.getConveyorCount());
+                int free = 0;
+                for (int conveyor : slots.copyConveyors()) {
+                    free += conveyor == 0 ? 1 : 0;
+                }
+                assertEquals(free, plan.getRejected().length);
+            }
+        }
+    }
+
+    @Test
+    public void maxAcceptedAcceptsMaximalNumberOfSlots() {
+        for (long seed = 0; seed < 50; ++seed) {
+            SlotBuffer slots = Slots.random(12, 1, seed);
+            int capacity = 1 + (int) (seed % 3);
+            int rejected = CapacityPlanning.planning(slots, capacity, Mode.MAX_ACCEPTED).getRejected().length;
+
+            assertEquals("seed " + seed, slots.size() - maxAccepted(slots, capacity), rejected);
+            assertTrue(rejected <= CapacityPlanning.planning(slots, capacity, Mode.FIRST_COME).getRejected().length);
+        }
+    }
+
+    /**
+     * @return size of the largest subset of slots with at most {@code capacity} of them running at once
+     */
+    private static int maxAccepted(SlotBuffer slots, int capacity) {
+        int max = 0;
+        for (int subset = 0; subset < 1 << slots.size(); ++subset) {
+            if (Integer.bitCount(subset) <= max) {
+                continue;
+            }
+            for (int i = 0; i < slots.size(); ++i) {
+                slots.setConveyor(i, (subset >> i & 1) == 0 ? 0 : 1);
+            }
+            if (Slots.maxOverlap(slots, false) <= capacity) {
+                max = Integer.bitCount(subset);
+            }
+        }
+        return max;
+    }
+}
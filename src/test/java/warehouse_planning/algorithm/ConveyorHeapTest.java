@@ -0,0 +1,51 @@
+package warehouse_planning.algorithm;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * @author agavrikov
+ */
+public class ConveyorHeapTest {
+
+    @Test
+    public void pollsInMinuteOrder() {
+        Random random = new Random(1);
+        long[] minutes = new long[1000];
+        ConveyorHeap heap = new ConveyorHeap(1);
+        for (int i = 0; i < minutes.length; ++i) {
+            minutes[i] = random.nextInt(100);
+            heap.add(minutes[i], i);
+        }
+        Arrays.sort(minutes);
+
+        for (long minute : minutes) {
+            assertEquals(minute, heap.peekFreeAt());
+            int conveyor = heap.poll();
+            assertTrue(conveyor >= 0 && conveyor < minutes.length);
+        }
+        assertTrue(heap.isEmpty());
+    }
+
+    @Test
+    public void replaceTopKeepsConveyor() {
+        ConveyorHeap heap = new ConveyorHeap(4);
+        heap.add(10, 1);
+        heap.add(20, 2);
+        heap.add(30, 3);
+
+        heap.replaceTop(25);
+        assertEquals(3, heap.size());
+        assertEquals(20, heap.peekFreeAt());
+        assertEquals(2, heap.poll());
+        assertEquals(25, heap.peekFreeAt());
+        assertEquals(1, heap.poll());
+        assertEquals(3, heap.poll());
+        assertTrue(heap.isEmpty());
+    }
+}
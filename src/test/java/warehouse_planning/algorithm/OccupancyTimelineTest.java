@@ -0,0 +1,53 @@
+package warehouse_planning.algorithm;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+/**
+ * @author agavrikov
+ */
+public class OccupancyTimelineTest {
+
+    @Test
+    public void countsSlotsRunningInEachBucket() {
+        OccupancyTimeline timeline = OccupancyTimeline.of(Slots.of(
+                new long[]{0, 60}, new long[]{30, 90}, new long[]{60, 120}, new long[]{150, 160}));
+
+        assertEquals(4, timeline.size());
+        assertArrayEquals(new int[]{2, 2, 1, 0}, timeline.occupancy(0, 60, 4));
+        assertArrayEquals(new int[]{0, 1, 2}, timeline.occupancy(-30, 30, 3));
+    }
+
+    @Test
+    public void countsSlotsStartedBeforeWindow() {
+        OccupancyTimeline timeline = OccupancyTimeline.of(Slots.of(new long[]{0, 100}, new long[]{10, 20}));
+        assertArrayEquals(new int[]{1, 1}, timeline.occupancy(50, 10, 2));
+        assertArrayEquals(new int[]{2}, timeline.occupancy(15, 1, 1));
+    }
+
+    @Test
+    public void matchesCountPerMinute() {
+        SlotBuffer slots = Slots.random(500, 2, 11);
+        OccupancyTimeline timeline = OccupancyTimeline.of(slots);
+        int bucketMinutes = 45;
+        int bucketCount = (int) (3 * Slots.DAY / bucketMinutes);
+        int[] buckets = timeline.occupancy(-60, bucketMinutes, bucketCount);
+
+        for (int bucket = 0; bucket < bucketCount; ++bucket) {
+            int max = 0;
+            for (int m = 0; m < bucketMinutes; ++m) {
+                long minute = -60 + bucket * bucketMinutes + m;
+                int count = 0;
+                for (int i = 0; i < slots.size(); ++i) {
+                    if (slots.getMinuteFrom(i) <= minute && minute < slots.getMinuteTo(i)) {
+                        count++;
+                    }
+                }
+                max = Math.max(max, count);
+            }
+            assertEquals("bucket " + bucket, max, buckets[bucket]);
+        }
+    }
+}
@@ -0,0 +1,67 @@
+package warehouse_planning.algorithm;
+
+import java.util.concurrent.ForkJoinPool;
+
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * @author agavrikov
+ */
+public class ParallelPlanningTest {
+
+    private static ForkJoinPool pool;
+
+    @BeforeClass
+    public static void createPool() {
+        pool = new ForkJoinPool(4);
+    }
+
+    @AfterClass
+    public static void shutdownPool() {
+        pool.shutdown();
+    }
+
+    @Test
+    public void plansSegmentsOnAsManyConveyorsAsSequentialPlanning() {
+        // slots of a working day from 8:00 to 20:00 leave idle nights to cut the timeline at
+        SlotBuffer slots = new SlotBuffer(0);
+        SlotBuffer sequential = new SlotBuffer(0);
+        SlotBuffer random = Slots.random(100_000, 30, 7);
+        for (int i = 0; i < random.size(); ++i) {
+            long day = random.getMinuteFrom(i) / Slots.DAY * Slots.DAY;
+            long minuteFrom = day + 8 * 60 + random.getMinuteFrom(i) % (10 * 60);
+            long minuteTo = minuteFrom + random.getMinuteTo(i) - random.getMinuteFrom(i);
+            slots.add(i + 1, minuteFrom, minuteTo, 0);
+            sequential.add(i + 1, minuteFrom, minuteTo, 0);
+        }
+
+        int conveyorCount = ParallelPlanning.planning(slots, pool);
+        assertEquals(WarehousePlanning.planning(sequential), conveyorCount);
+        Slots.assertAllPlanned(slots, conveyorCount);
+    }
+
+    @Test
+    public void plansWithoutGaps() {
+        // every slot overlaps the next one, so there is a single segment
+        SlotBuffer slots = new SlotBuffer(0);
+        for (int i = 0; i < 30_000; ++i) {
+            slots.add(i + 1, i * 10L, i * 10L + 25, 0);
+        }
+
+        int conveyorCount = ParallelPlanning.planning(slots, pool);
+        assertEquals(3, conveyorCount);
+        Slots.assertAllPlanned(slots, conveyorCount);
+    }
+
+    @Test
+    public void plansSmallBufferAtOnce() {
+        for (long seed = 0; seed < 5; ++seed) {
+            SlotBuffer slots = Slots.random(500, 2, seed);
+            Slots.assertAllPlanned(slots, ParallelPlanning.planning(slots, pool));
+        }
+    }
+}
@@ -0,0 +1,46 @@
+package warehouse_planning.algorithm;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * @author agavrikov
+ */
+public class PlanningCheckerTest {
+
+    @Test
+    public void acceptsPlanning() {
+        SlotBuffer slots = Slots.random(1000, 2, 5);
+        int conveyorCount = WarehousePlanning.planning(slots);
+        assertTrue(PlanningChecker.check(slots, slots.sort(), conveyorCount));
+    }
+
+    @Test
+    public void rejectsOverlapOnConveyor() {
+        SlotBuffer slots = Slots.of(new long[]{0, 10}, new long[]{20, 30}, new long[]{9, 20});
+        slots.setConveyor(0, 1);
+        slots.setConveyor(1, 1);
+        slots.setConveyor(2, 2);
+        assertTrue(PlanningChecker.check(slots, slots.sort(), 2));
+
+        slots.setConveyor(2, 1);
+        assertFalse(PlanningChecker.check(slots, slots.sort(), 2));
+    }
+
+    @Test
+    public void countsFreeSlots() {
+        SlotBuffer slots = Slots.of(new long[]{0, 10}, new long[]{5, 15});
+        slots.setConveyor(0, 1);
+        assertFalse(PlanningChecker.check(slots, slots.sort(), 1));
+        assertTrue(PlanningChecker.check(slots, slots.sort(), 1, 1));
+    }
+
+    @Test
+    public void rejectsConveyorOutOfCount() {
+        SlotBuffer slots = Slots.of(new long[]{0, 10});
+        slots.setConveyor(0, 2);
+        assertFalse(PlanningChecker.check(slots, slots.sort(), 1));
+    }
+}
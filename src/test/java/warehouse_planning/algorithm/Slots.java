@@ -0,0 +1,86 @@
+package warehouse_planning.algorithm;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Random slot buffers and brute-force checks of plannings for the tests of the algorithms.
+ *
+ * @author agavrikov
+ */
+final class Slots {
+
+    static final long DAY = 24 * 60;
+
+    private Slots() {
+    }
+
+    static SlotBuffer of(long[]... minutes) {
+        SlotBuffer slots = new SlotBuffer(minutes.length);
+        for (int i = 0; i < minutes.length; ++i) {
+            slots.add(i + 1, minutes[i][0], minutes[i][1], 0);
+        }
+        return slots;
+    }
+
+    /**
+     * @return slots starting within {@code days} days with durations up to two hours, in random order
+     */
+    static SlotBuffer random(int count, int days, long seed) {
+        Random random = new Random(seed);
+        SlotBuffer slots = new SlotBuffer(count);
+        for (int i = 0; i < count; ++i) {
+            long minuteFrom = random.nextInt(days) * DAY + random.nextInt((int) DAY);
+            slots.add(i + 1, minuteFrom, minuteFrom + 1 + random.nextInt(120), 0);
+        }
+        return slots;
+    }
+
+    /**
+     * @return maximal number of slots not on conveyor 0 running at one minute, or of all slots if {@code all}
+     */
+    static int maxOverlap(SlotBuffer slots, boolean all) {
+        ConveyorHeap running = new ConveyorHeap(16);
+        int max = 0;
+        for (int i : slots.sort()) {
+            if (!all && slots.getConveyor(i) == 0) {
+                continue;
+            }
+            while (!running.isEmpty() && running.peekFreeAt() <= slots.getMinuteFrom(i)) {
+                running.poll();
+            }
+            running.add(slots.getMinuteTo(i), i);
+            max = Math.max(max, running.size());
+        }
+        return max;
+    }
+
+    /**
+     * Asserts that no two slots on one conveyor overlap and that conveyors are numbered from 1 to
+     * {@code conveyorCount}.
+     */
+    static void assertPlanned(SlotBuffer slots, int conveyorCount) {
+        long[] freeAt = new long[conveyorCount + 1];
+        Arrays.fill(freeAt, Long.MIN_VALUE);
+        for (int i : slots.sort()) {
+            int conveyor = slots.getConveyor(i);
+            assertTrue("conveyor " + conveyor + " of slot " + i, conveyor >= 0 && conveyor <= conveyorCount);
+            if (conveyor != 0) {
+                assertTrue("slot " + i + " overlaps on conveyor " + conveyor,
+                        freeAt[conveyor] <= slots.getMinuteFrom(i));
+                freeAt[conveyor] = slots.getMinuteTo(i);
+            }
+        }
+    }
+
+    static void assertAllPlanned(SlotBuffer slots, int conveyorCount) {
+        assertPlanned(slots, conveyorCount);
+        for (int i = 0; i < slots.size(); ++i) {
+            assertTrue("slot " + i + " is free", slots.getConveyor(i) != 0);
+        }
+        assertEquals(maxOverlap(slots, true), conveyorCount);
+    }
+}
@@ -0,0 +1,103 @@
+package warehouse_planning.algorithm;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Test;
+
+import warehouse_planning.model.Slot;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+/**
+ * @author agavrikov
+ */
+public class WarehousePlanningTest {
+
+    @Test
+    public void reusesConveyorFreedAtStart() {
+        SlotBuffer slots = Slots.of(new long[]{0, 10}, new long[]{10, 20}, new long[]{5, 15});
+
+        assertEquals(2, WarehousePlanning.planning(slots));
+        assertEquals(1, slots.getConveyor(0));
+        assertEquals(2, slots.getConveyor(2));
+        assertEquals(1, slots.getConveyor(1));
+    }
+
+    @Test
+    public void usesMinimalNumberOfConveyors() {
+        for (long seed = 0; seed < 20; ++seed) {
+            SlotBuffer slots = Slots.random(300, 3, seed);
+            Slots.assertAllPlanned(slots, WarehousePlanning.planning(slots));
+        }
+    }
+
+    @Test
+    public void emptyBuffer() {
+        assertEquals(0, WarehousePlanning.planning(new SlotBuffer(0)));
+    }
+
+    @Test
+    public void plansOvernightSlotsIntoNextDay() {
+        LocalDate date = LocalDate.of(2020, 1, 1);
+        LocalDateTime now = LocalDateTime.now();
+        List<Slot> slots = new ArrayList<>();
+        slots.add(new Slot(1, "A", 1, date, LocalTime.of(23, 0), LocalTime.of(1, 0), 7, now));
+        slots.add(new Slot(2, "B", 1, date.plusDays(1), LocalTime.of(0, 30), LocalTime.of(2, 0), null, now));
+        slots.add(new Slot(3, "C", 1, date.plusDays(1), LocalTime.of(1, 0), LocalTime.of(3, 0), null, now));
+
+        assertEquals(2, WarehousePlanning.planning(slots));
+        assertEquals(Integer.valueOf(1), slots.get(0).getConveyorId());
+        assertEquals(Integer.valueOf(2), slots.get(1).getConveyorId());
+        assertEquals(Integer.valueOf(1), slots.get(2).getConveyorId());
+    }
+
+    @Test
+    public void sortOrdersByStartThenEnd() {
+        SlotBuffer slots = Slots.of(new long[]{5, 9}, new long[]{1, 8}, new long[]{5, 6}, new long[]{0, 3});
+        assertArrayEquals(new int[]{3, 1, 2, 0}, slots.sort());
+        assertArrayEquals(new int[]{3, 1, 2, 0}, slots.parallelSort());
+    }
+
+    @Test
+    public void sortFallsBackForWideRanges() {
+        SlotBuffer slots = Slots.of(new long[]{Long.MAX_VALUE / 2, Long.MAX_VALUE / 2 + 1},
+                new long[]{-Long.MAX_VALUE / 2, 0}, new long[]{-Long.MAX_VALUE / 2, -1});
+        assertArrayEquals(new int[]{2, 1, 0}, slots.sort());
+    }
+
+    @Test
+    public void markedSortedBufferKeepsOrder() {
+        SlotBuffer slots = new SlotBuffer(0);
+        slots.markSorted();
+        slots.add(1, 0, 10, 0);
+        slots.add(2, 5, 7, 0);
+        assertArrayEquals(new int[]{0, 1}, slots.sort());
+
+        slots.add(3, 1, 2, 0);
+        assertArrayEquals(new int[]{0, 2, 1}, slots.sort());
+    }
+
+    @Test
+    public void appliesOnlyChangedConveyors() {
+        LocalDate date = LocalDate.of(2020, 1, 1);
+        LocalDateTime now = LocalDateTime.now();
+        List<Slot> slots = new ArrayList<>();
+        slots.add(new Slot(1, "A", 1, date, LocalTime.of(8, 0), LocalTime.of(9, 0), 1, now));
+        slots.add(new Slot(2, "B", 1, date, LocalTime.of(8, 0), LocalTime.of(9, 0), 1, now));
+
+        SlotBuffer buffer = SlotBuffer.of(slots);
+        buffer.setConveyor(0, 1);
+        buffer.setConveyor(1, 0);
+
+        List<Slot> changed = buffer.applyTo(slots);
+        assertEquals(1, changed.size());
+        assertEquals(2, changed.get(0).getId());
+        assertNull(slots.get(1).getConveyorId());
+    }
+}
@@ -0,0 +1,45 @@
+package warehouse_planning.model;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+/**
+ * @author agavrikov
+ */
+public class SlotCursorTest {
+
+    @Test
+    public void decodesEncodedCursor() {
+        SlotCursor cursor = SlotCursor.decode(new SlotCursor(3, LocalDate.of(2020, 1, 1), LocalTime.of(10, 0),
+                LocalTime.of(11, 30), 42).encode());
+
+        assertEquals(Integer.valueOf(3), cursor.getConveyorId());
+        assertEquals(LocalDateTime.of(2020, 1, 1, 10, 0), cursor.getStartsAt());
+        assertEquals(LocalDateTime.of(2020, 1, 1, 11, 30), cursor.getEndsAt());
+        assertEquals(42, cursor.getId());
+    }
+
+    @Test
+    public void decodesCursorOfFreeSlot() {
+        SlotCursor cursor = SlotCursor.decode(new SlotCursor(null, LocalDate.of(2020, 1, 1), LocalTime.of(23, 0),
+                LocalTime.of(1, 0), 7).encode());
+
+        assertNull(cursor.getConveyorId());
+        assertEquals(LocalDateTime.of(2020, 1, 2, 1, 0), cursor.getEndsAt());
+    }
+
+    @Test
+    public void rejectsMalformedCursor() {
+        assertNull(SlotCursor.decode(null));
+        assertNull(SlotCursor.decode(""));
+        assertNull(SlotCursor.decode("not base64!"));
+        assertNull(SlotCursor.decode("MXwyfDM"));
+        assertNull(SlotCursor.decode("eHwyMDIwLTAxLTAxfDEwOjAwfDExOjAwfDQy"));
+    }
+}
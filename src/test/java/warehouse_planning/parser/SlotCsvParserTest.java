@@ -0,0 +1,67 @@
+package warehouse_planning.parser;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Test;
+
+import warehouse_planning.model.Slot;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+/**
+ * @author agavrikov
+ */
+public class SlotCsvParserTest {
+
+    @Test
+    public void readsSlotsInChunks() throws IOException {
+        List<List<Slot>> chunks = parse("guid,date,time_from,time_to\n" +
+                "SLOT-1,2020-01-01,10:00,11:00\n" +
+                "\"SLOT \"\"2\"\" b, c\",2020-01-02, 08:15 ,09:45\n" +
+                "SLOT-3,2020-01-03,12:00,13:00\n", 2);
+
+        assertEquals(2, chunks.size());
+        assertEquals(2, chunks.get(0).size());
+        assertEquals(1, chunks.get(1).size());
+
+        Slot slot = chunks.get(0).get(1);
+        assertEquals("SLOT \"2\" b, c", slot.getGuid());
+        assertEquals(7, slot.getWarehouseId());
+        assertEquals(LocalDate.of(2020, 1, 2), slot.getDate());
+        assertEquals(LocalTime.of(8, 15), slot.getTimeFrom());
+        assertEquals(LocalTime.of(9, 45), slot.getTimeTo());
+        assertNull(slot.getConveyorId());
+        assertEquals("SLOT-3", chunks.get(1).get(0).getGuid());
+    }
+
+    @Test
+    public void skipsInvalidLines() throws IOException {
+        List<List<Slot>> chunks = parse("\n" +
+                "SLOT-1\n" +
+                ",2020-01-01,10:00,11:00\n" +
+                "\"SLOT-2,2020-01-01,10:00,11:00\n" +
+                "SLOT-3,2020-01-01,10:00\n" +
+                "SLOT-4,2020-13-01,10:00,11:00\n" +
+                "SLOT-5,2020-01-01,11:00,10:00\n" +
+                "SLOT-6,2020-01-01,10:00,10:00\n" +
+                "SLOT-7,2020-01-01,10:00,11:00", 10);
+
+        assertEquals(1, chunks.size());
+        assertEquals(1, chunks.get(0).size());
+        assertEquals("SLOT-7", chunks.get(0).get(0).getGuid());
+    }
+
+    private static List<List<Slot>> parse(String csv, int chunkSize) throws IOException {
+        List<List<Slot>> chunks = new ArrayList<>();
+        SlotCsvParser.parse(new ByteArrayInputStream(csv.getBytes(StandardCharsets.UTF_8)), 7, chunkSize,
+                chunks::add);
+        return chunks;
+    }
+}
@@ -0,0 +1,114 @@
+package warehouse_planning.parser;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.apache.poi.openxml4j.opc.OPCPackage;
+import org.apache.poi.ss.usermodel.CellStyle;
+import org.apache.poi.ss.usermodel.Row;
+import org.apache.poi.ss.usermodel.Sheet;
+import org.apache.poi.xssf.usermodel.XSSFWorkbook;
+import org.junit.Test;
+
+import warehouse_planning.model.Slot;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * @author agavrikov
+ */
+public class SlotSheetParserTest {
+
+    @Test
+    public void readsSheetWrittenBySlotSheetWriter() throws Exception {
+        LocalDateTime now = LocalDateTime.now();
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (SlotSheetWriter writer = new SlotSheetWriter()) {
+            for (int i = 0; i < 5; ++i) {
+                writer.write(new Slot(i + 1, "SLOT-" + i, 1, LocalDate.of(2020, 1, 1 + i), LocalTime.of(8, i),
+                        LocalTime.of(9 + i, 30), i % 2 == 0 ? null : i, now));
+            }
+            writer.finish(out);
+        }
+
+        List<List<Slot>> chunks = new ArrayList<>();
+        try (OPCPackage pkg = OPCPackage.open(new ByteArrayInputStream(out.toByteArray()))) {
+            assertEquals(1, SlotSheetParser.getSheetNames(pkg).size());
+            SlotSheetParser.parse(pkg, 7, 2, chunks::add);
+        }
+
+        assertEquals(3, chunks.size());
+        assertEquals(1, chunks.get(2).size());
+        Slot slot = chunks.get(1).get(1);
+        assertEquals("SLOT-3", slot.getGuid());
+        assertEquals(7, slot.getWarehouseId());
+        assertEquals(LocalDate.of(2020, 1, 4), slot.getDate());
+        assertEquals(LocalTime.of(8, 3), slot.getTimeFrom());
+        assertEquals(LocalTime.of(12, 30), slot.getTimeTo());
+    }
+
+    @Test
+    public void rejectsInvalidRows() throws Exception {
+        List<String> rejected = new ArrayList<>();
+        List<Slot> slots = new ArrayList<>();
+        try (OPCPackage pkg = OPCPackage.open(new ByteArrayInputStream(workbook()))) {
+            assertEquals(2, SlotSheetParser.getSheetNames(pkg).size());
+            SlotSheetParser.parse(pkg, 1, 7, 10, slots::addAll,
+                    (rowNum, reason) -> rejected.add(rowNum + ": " + reason));
+        }
+
+        assertEquals(2, slots.size());
+        assertEquals("SLOT-1", slots.get(0).getGuid());
+        assertEquals("SLOT-5", slots.get(1).getGuid());
+        assertEquals(3, rejected.size());
+        assertEquals("3: missing time to", rejected.get(0));
+        assertEquals("4: date is not a date or time: tomorrow", rejected.get(1));
+        assertEquals("6: time from 11:00 is not before time to 10:00", rejected.get(2));
+    }
+
+    /**
+     * @return workbook with an empty first sheet and a header, valid and invalid rows and an empty row on the second
+     */
+    private static byte[] workbook() throws Exception {
+        try (XSSFWorkbook workbook = new XSSFWorkbook()) {
+            workbook.createSheet("Empty");
+            Sheet sheet = workbook.createSheet("Slots");
+            CellStyle dateStyle = workbook.createCellStyle();
+            dateStyle.setDataFormat(workbook.createDataFormat().getFormat("yyyy-mm-dd"));
+            CellStyle timeStyle = workbook.createCellStyle();
+            timeStyle.setDataFormat(workbook.createDataFormat().getFormat("hh:mm"));
+
+            Row header = sheet.createRow(0);
+            header.createCell(0).setCellValue("guid");
+            header.createCell(1).setCellValue("date");
+            row(sheet, 1, dateStyle, timeStyle, "SLOT-1", 10, 11);
+            row(sheet, 2, dateStyle, timeStyle, "SLOT-2", 10, 11).removeCell(sheet.getRow(2).getCell(3));
+            row(sheet, 3, dateStyle, timeStyle, "SLOT-3", 10, 11).getCell(1).setCellValue("tomorrow");
+            sheet.createRow(4);
+            row(sheet, 5, dateStyle, timeStyle, "SLOT-4", 11, 10);
+            row(sheet, 6, dateStyle, timeStyle, "SLOT-5", 10, 11);
+
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            workbook.write(out);
+            return out.toByteArray();
+        }
+    }
+
+    private static Row row(Sheet sheet, int rowNum, CellStyle dateStyle, CellStyle timeStyle, String guid,
+                           int hourFrom, int hourTo) {
+        Row row = sheet.createRow(rowNum);
+        row.createCell(0).setCellValue(guid);
+        row.createCell(1).setCellValue(LocalDate.of(2020, 1, 1));
+        row.getCell(1).setCellStyle(dateStyle);
+        row.createCell(2).setCellValue(hourFrom / 24.0);
+        row.getCell(2).setCellStyle(timeStyle);
+        row.createCell(3).setCellValue(hourTo / 24.0);
+        row.getCell(3).setCellStyle(timeStyle);
+        return row;
+    }
+}
@@ -0,0 +1,203 @@
+package warehouse_planning.service;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+
+import org.junit.AfterClass;
+import org.junit.Assume;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import org.springframework.core.io.Resource;
+import org.springframework.core.io.support.PathMatchingResourcePatternResolver;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.jdbc.datasource.SingleConnectionDataSource;
+import org.springframework.util.StreamUtils;
+import org.testcontainers.DockerClientFactory;
+import org.testcontainers.containers.PostgreSQLContainer;
+
+import warehouse_planning.model.SlotCursor;
+
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Regression check of the query plans of the slot queries: every query must be answered from its index, on the
+ * partitioned slot table from the partitions of the index. Sequential scans are disabled, so a predicate that no
+ * index can serve still shows up in the plan.
+ * <p>
+ * The migrations are applied to a scratch database on the server of {@code -Dtest.jdbc.url} (with
+ * {@code test.jdbc.user} and {@code test.jdbc.password}), or of a PostgreSQL container if Docker is available;
+ * without either the test is skipped.
+ *
+ * @author agavrikov
+ */
+public class SlotQueryPlanTest {
+
+    private static final String DATABASE = "slot_query_plan_test";
+    private static final String LISTING_ORDER = " ORDER BY conveyor_id, starts_at, ends_at, id LIMIT 11";
+    private static final SlotCursor CURSOR = new SlotCursor(3, LocalDate.of(2020, 1, 1), LocalTime.of(10, 0),
+            LocalTime.of(11, 0), 42);
+
+    private static PostgreSQLContainer<?> container;
+    private static Connection admin;
+    private static SingleConnectionDataSource dataSource;
+    private static NamedParameterJdbcTemplate jdbcTemplate;
+
+    @BeforeClass
+    public static void createDatabase() throws Exception {
+        String url = System.getProperty("test.jdbc.url", "");
+        String user = System.getProperty("test.jdbc.user", "postgres");
+        String password = System.getProperty("test.jdbc.password", "");
+        if (url.isEmpty()) {
+            Assume.assumeTrue("no test.jdbc.url and no Docker", DockerClientFactory.instance().isDockerAvailable());
+            container = new PostgreSQLContainer<>("postgres:14");
+            container.start();
+            url = container.getJdbcUrl();
+            user = container.getUsername();
+            password = container.getPassword();
+        }
+
+        admin = DriverManager.getConnection(url, user, password);
+        execute(admin, "DROP DATABASE IF EXISTS " + DATABASE);
+        execute(admin, "CREATE DATABASE " + DATABASE);
+        dataSource = new SingleConnectionDataSource(url.replaceFirst("/[^/?]*(\\?|$)", "/" + DATABASE + "$1"),
+                user, password, true);
+        jdbcTemplate = new NamedParameterJdbcTemplate(dataSource);
+
+        Connection connection = dataSource.getConnection();
+        run(connection, new PathMatchingResourcePatternResolver().getResource("classpath:db/slot_schema.sql"));
+        run(connection, new PathMatchingResourcePatternResolver().getResource("classpath:db/slot_data.sql"));
+        Resource[] migrations = new PathMatchingResourcePatternResolver().getResources("classpath:db/migration/*.sql");
+        Arrays.sort(migrations, Comparator.comparing(Resource::getFilename));
+        for (Resource migration : migrations) {
+            run(connection, migration);
+        }
+        execute(connection, "SET enable_seqscan = off");
+    }
+
+    @AfterClass
+    public static void dropDatabase() throws SQLException {
+        if (dataSource != null) {
+            dataSource.destroy();
+        }
+        if (admin != null) {
+            execute(admin, "DROP DATABASE IF EXISTS " + DATABASE);
+            admin.close();
+        }
+        if (container != null) {
+            container.stop();
+        }
+    }
+
+    @Test
+    public void firstPage() {
+        SlotQuery query = new SlotQuery(1);
+        assertIndexUsed("slot_warehouse_conveyor_starts_at_idx", "SELECT id FROM slot" + query.where() + LISTING_ORDER,
+                query.params());
+    }
+
+    @Test
+    public void nextPage() {
+        SlotQuery query = new SlotQuery(1).after(CURSOR);
+        assertIndexUsed("slot_warehouse_conveyor_starts_at_idx", "SELECT id FROM slot" + query.where() + LISTING_ORDER,
+                query.params());
+    }
+
+    @Test
+    public void conveyor() {
+        SlotQuery query = new SlotQuery(1).conveyor(3);
+        assertIndexUsed("slot_warehouse_conveyor_starts_at_idx", "SELECT id FROM slot" + query.where() + LISTING_ORDER,
+                query.params());
+    }
+
+    @Test
+    public void date() {
+        SlotQuery query = new SlotQuery(1)
+                .from(LocalDateTime.of(2020, 1, 1, 0, 0)).to(LocalDateTime.of(2020, 1, 2, 0, 0));
+        String plan = assertIndexUsed("slot_warehouse_conveyor_starts_at_idx",
+                "SELECT id FROM slot" + query.where() + LISTING_ORDER, query.params());
+        assertFalse("months out of range are scanned:\n" + plan, plan.contains("slot_y2020m02"));
+    }
+
+    @Test
+    public void slotNumber() {
+        SlotQuery query = new SlotQuery(1).guid("SLOT-1");
+        assertIndexUsed("slot_warehouse_guid_idx", "SELECT COUNT(*) FROM slot" + query.where(), query.params());
+    }
+
+    @Test
+    public void count() {
+        SlotQuery query = new SlotQuery(1).conveyor(3).from(LocalDateTime.of(2020, 1, 1, 0, 0));
+        assertIndexUsed("slot_warehouse_conveyor_starts_at_idx", "SELECT COUNT(*) FROM slot" + query.where(),
+                query.params());
+    }
+
+    @Test
+    public void planningLoad() {
+        SlotQuery query = new SlotQuery(1);
+        assertIndexUsed("slot_warehouse_starts_at_idx",
+                "SELECT id, starts_at, ends_at, conveyor_id FROM slot" + query.where() + " ORDER BY starts_at, ends_at, id",
+                query.params());
+    }
+
+    /**
+     * Asserts that the plan of the query reads the index or one of its partitions and no table sequentially.
+     *
+     * @return the plan
+     */
+    private static String assertIndexUsed(String index, String sql, MapSqlParameterSource params) {
+        String plan = String.join("\n", jdbcTemplate.queryForList("EXPLAIN " + sql, params, String.class));
+        List<String> names = jdbcTemplate.queryForList(
+                "WITH RECURSIVE index (oid) AS (" +
+                "    SELECT CAST(:index AS regclass)::oid" +
+                "     UNION ALL" +
+                "    SELECT inhrelid FROM pg_inherits JOIN index ON inhparent = index.oid" +
+                ")" +
+                "SELECT relname FROM index JOIN pg_class c USING (oid)",
+                new MapSqlParameterSource("index", index), String.class);
+
+        assertFalse("sequential scan in:\n" + plan, plan.contains("Seq Scan"));
+        assertTrue(index + " is not used by:\n" + sql + "\n" + plan, names.stream().anyMatch(plan::contains));
+        return plan;
+    }
+
+    /**
+     * Runs the statements of a script one by one, in autocommit mode for {@code CREATE INDEX CONCURRENTLY}.
+     * Statements end with a semicolon at the end of a line, outside of {@code $$} quotes.
+     */
+    private static void run(Connection connection, Resource script) throws IOException, SQLException {
+        String text = StreamUtils.copyToString(script.getInputStream(), StandardCharsets.UTF_8);
+        StringBuilder statement = new StringBuilder();
+        boolean quoted = false;
+        for (String line : text.split("\n")) {
+            if (statement.length() == 0 && (line.trim().isEmpty() || line.trim().startsWith("--"))) {
+                continue;
+            }
+            statement.append(line).append('\n');
+            if ((line.split("\\$\\$", -1).length - 1) % 2 == 1) {
+                quoted = !quoted;
+            }
+            if (!quoted && line.trim().endsWith(";")) {
+                execute(connection, statement.toString());
+                statement.setLength(0);
+            }
+        }
+    }
+
+    private static void execute(Connection connection, String sql) throws SQLException {
+        try (Statement statement = connection.createStatement()) {
+            statement.execute(sql);
+        }
+    }
+}
@@ -0,0 +1,91 @@
+package warehouse_planning.service;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+
+import org.junit.Test;
+
+import warehouse_planning.model.SlotCursor;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+
+/**
+ * @author agavrikov
+ */
+public class SlotQueryTest {
+
+    private static final SlotCursor CURSOR = new SlotCursor(3, LocalDate.of(2020, 1, 1), LocalTime.of(23, 0),
+            LocalTime.of(1, 0), 42);
+    private static final SlotCursor FREE_CURSOR = new SlotCursor(null, LocalDate.of(2020, 1, 1),
+            LocalTime.of(10, 0), LocalTime.of(11, 0), 42);
+
+    @Test
+    public void skipsMissingPredicates() {
+        SlotQuery query = new SlotQuery(1).guid("").conveyor(null).from(null).to(null).after(null).before(null);
+
+        assertEquals(" WHERE warehouse_id = :warehouse_id", query.where());
+        assertEquals(1L, query.params().getValue("warehouse_id"));
+        assertEquals(1, query.params().getValues().size());
+    }
+
+    @Test
+    public void repeatsTimeBoundsOnPartitionKey() {
+        SlotQuery query = new SlotQuery(1).guid("SLOT-1").conveyor(3)
+                .from(LocalDateTime.of(2020, 1, 1, 10, 0)).to(LocalDateTime.of(2020, 1, 2, 0, 0));
+
+        assertEquals(" WHERE warehouse_id = :warehouse_id AND guid = :guid AND conveyor_id = :conveyor_id" +
+                " AND starts_at >= :time_from AND date >= :date_from" +
+                " AND ends_at <= :time_to AND date <= :date_to", query.where());
+        assertEquals("SLOT-1", query.params().getValue("guid"));
+        assertEquals(LocalDate.of(2020, 1, 1), query.params().getValue("date_from"));
+        assertEquals(LocalDate.of(2020, 1, 2), query.params().getValue("date_to"));
+    }
+
+    @Test
+    public void seeksAfterCursor() {
+        SlotQuery query = new SlotQuery(1).after(CURSOR);
+
+        assertEquals(" WHERE warehouse_id = :warehouse_id AND (conveyor_id IS NULL OR conveyor_id > :c_conveyor_id" +
+                " OR conveyor_id = :c_conveyor_id AND (starts_at, ends_at, id) > (:c_starts_at, :c_ends_at, :c_id))",
+                query.where());
+        assertCursorParams(query);
+    }
+
+    @Test
+    public void seeksBeforeCursor() {
+        SlotQuery query = new SlotQuery(1).before(CURSOR);
+
+        assertEquals(" WHERE warehouse_id = :warehouse_id AND (conveyor_id < :c_conveyor_id" +
+                " OR conveyor_id = :c_conveyor_id AND (starts_at, ends_at, id) < (:c_starts_at, :c_ends_at, :c_id))",
+                query.where());
+        assertCursorParams(query);
+    }
+
+    @Test
+    public void seeksAfterFreeSlot() {
+        SlotQuery query = new SlotQuery(1).after(FREE_CURSOR);
+
+        assertEquals(" WHERE warehouse_id = :warehouse_id AND conveyor_id IS NULL" +
+                " AND (starts_at, ends_at, id) > (:c_starts_at, :c_ends_at, :c_id)", query.where());
+        assertFalse(query.params().hasValue("c_conveyor_id"));
+    }
+
+    @Test
+    public void seeksBeforeFreeSlot() {
+        SlotQuery query = new SlotQuery(1).before(FREE_CURSOR);
+
+        assertEquals(" WHERE warehouse_id = :warehouse_id AND (conveyor_id IS NOT NULL" +
+                " OR (starts_at, ends_at, id) < (:c_starts_at, :c_ends_at, :c_id))", query.where());
+        assertEquals(LocalDateTime.of(2020, 1, 1, 11, 0), query.params().getValue("c_ends_at"));
+    }
+
+    private static void assertCursorParams(SlotQuery query) {
+        assertEquals(3, query.params().getValue("c_conveyor_id"));
+        assertEquals(LocalDateTime.of(2020, 1, 1, 23, 0), query.params().getValue("c_starts_at"));
+        // the overnight slot of the cursor ends the next day
+        assertEquals(LocalDateTime.of(2020, 1, 2, 1, 0), query.params().getValue("c_ends_at"));
+        assertEquals(42L, query.params().getValue("c_id"));
+    }
+}
@@ -0,0 +1,10 @@
+-- Two warehouses with 100 000 slots each over two months, a fifth of them free.
+INSERT INTO warehouse (id, name)
+SELECT nextval('warehouse_seq'), 'Warehouse ' || w
+  FROM generate_series(1, 2) w;
+
+INSERT INTO slot (id, guid, warehouse_id, date, time_from, time_to, conveyor_id)
+SELECT nextval('slot_seq'), 'SLOT-' || g, 1 + g % 2, date '2020-01-01' + g % 60,
+       time '00:00' + g % 1380 * interval '1 minute', time '00:00' + (g % 1380 + 30 + g % 90) * interval '1 minute',
+       CASE WHEN g % 5 = 0 THEN NULL ELSE g % 40 END
+  FROM generate_series(1, 200000) g;
@@ -0,0 +1,21 @@
+-- Tables as they are before the first migration, for tests that apply the migrations to an empty database.
+CREATE SEQUENCE warehouse_seq;
+
+CREATE SEQUENCE slot_seq;
+
+CREATE TABLE warehouse (
+    id            bigint    PRIMARY KEY,
+    creation_time timestamp NOT NULL DEFAULT now(),
+    name          text      NOT NULL
+);
+
+CREATE TABLE slot (
+    id            bigint    PRIMARY KEY,
+    guid          text      NOT NULL,
+    warehouse_id  bigint    NOT NULL,
+    date          date      NOT NULL,
+    time_from     time      NOT NULL,
+    time_to       time      NOT NULL,
+    conveyor_id   integer,
+    creation_time timestamp NOT NULL DEFAULT now()
+);